@@ -0,0 +1,303 @@
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that InMemoryPizzaStoreRepository behaves like the tables of
+ * create_tables.sql: loading the csv files, the constraints and the
+ * SQLStates Postgres reports for them, the ON DELETE actions, and claiming
+ * orders from many drivers at once. Run it with scripts/check.sh.
+ *
+ * Prints every failed check and exits with status 1 if there was one.
+ *
+ */
+public class RepositoryCheck {
+
+   private static final String NOT_NULL_VIOLATION = "23502";
+   private static final String FOREIGN_KEY_VIOLATION = "23503";
+   private static final String UNIQUE_VIOLATION = "23505";
+   private static final String STRING_DATA_RIGHT_TRUNCATION = "22001";
+   private static final String NUMERIC_VALUE_OUT_OF_RANGE = "22003";
+
+   private static int checks = 0;
+   private static int failures = 0;
+
+   // a statement run by expectState
+   private interface Statement {
+      void run() throws Exception;
+   }
+
+   public static void main(String[] args) throws Exception {
+      if (args.length != 1) {
+         System.err.println("Usage: java RepositoryCheck <data directory>");
+         System.exit(2);
+      }
+      checkLoad(args[0]);
+      checkConstraints();
+      checkDeleteActions();
+      checkPlaceOrder();
+      checkConcurrentClaims(16, 4, 2000);
+      System.out.println(checks + " checks, " + failures + " failed");
+      System.exit(failures == 0 ? 0 : 1);
+   }//end main
+
+   /*
+    * The csv files of load_data.sql load without a constraint violation
+    **/
+   private static void checkLoad(String dataDir) throws Exception {
+      InMemoryPizzaStoreRepository r = InMemoryPizzaStoreRepository.load(dataDir);
+      List<List<String>> orders = r.listOrders(null, 0);
+      expect(!r.listUsers().isEmpty(), "users are loaded");
+      expect(!orders.isEmpty(), "orders are loaded");
+      expect(!r.listOrderLines(Integer.parseInt(orders.get(0).get(0))).isEmpty(), "order lines are loaded");
+   }//end checkLoad
+
+   /*
+    * Primary keys, foreign keys, NOT NULL, varchar and decimal columns
+    **/
+   private static void checkConstraints() throws Exception {
+      final InMemoryPizzaStoreRepository r = newRepository();
+
+      expectState(UNIQUE_VIOLATION, "duplicate login", new Statement() {
+         public void run() throws Exception { r.createUser("alice", "pw", Role.CUSTOMER, "555"); }
+      });
+      expectState(UNIQUE_VIOLATION, "duplicate item", new Statement() {
+         public void run() throws Exception { r.createItem("Pizza", "dough", "entree", new BigDecimal("1.00"), "again"); }
+      });
+      expectState(UNIQUE_VIOLATION, "rename onto an existing login", new Statement() {
+         public void run() throws Exception { r.updateLogin("bob", "alice"); }
+      });
+      expectState(NOT_NULL_VIOLATION, "null password", new Statement() {
+         public void run() throws Exception { r.createUser("carol", null, Role.CUSTOMER, "555"); }
+      });
+      expectState(FOREIGN_KEY_VIOLATION, "order of an unknown user", new Statement() {
+         public void run() throws Exception { order(r, "nobody", 1, "Pizza"); }
+      });
+      expectState(FOREIGN_KEY_VIOLATION, "order at an unknown store", new Statement() {
+         public void run() throws Exception { order(r, "alice", 99, "Pizza"); }
+      });
+      expectState(FOREIGN_KEY_VIOLATION, "order of an unknown item", new Statement() {
+         public void run() throws Exception { order(r, "alice", 1, "Calzone"); }
+      });
+      order(r, "alice", 1, "Pizza");
+      expectState(FOREIGN_KEY_VIOLATION, "rename of a user with orders", new Statement() {
+         public void run() throws Exception { r.updateLogin("alice", "alicia"); }
+      });
+
+      // varchar(50): too long is an error unless only blanks are cut off
+      expectState(STRING_DATA_RIGHT_TRUNCATION, "login over 50 characters", new Statement() {
+         public void run() throws Exception { r.createUser(repeat('x', 51), "pw", Role.CUSTOMER, "555"); }
+      });
+      String padded = "dave" + repeat(' ', 60);
+      r.createUser(padded, "pw", Role.CUSTOMER, "555");
+      expect(r.getUser(padded.substring(0, 50)) != null, "trailing blanks over 50 characters are cut off");
+
+      // decimal(10,2): rounded half up to cents, at most 8 digits before the point
+      r.createItem("Soda", "water", "drink", new BigDecimal("1.005"), "fizzy");
+      expect(new BigDecimal("1.01").equals(r.getItemPrice("Soda")), "prices are rounded to cents");
+      expectState(NUMERIC_VALUE_OUT_OF_RANGE, "price over decimal(10,2)", new Statement() {
+         public void run() throws Exception { r.createItem("Gold", "gold", "entree", new BigDecimal("123456789.00"), "shiny"); }
+      });
+   }//end checkConstraints
+
+   /*
+    * ON DELETE CASCADE, ON DELETE SET NULL and the release_driver_orders
+    * trigger
+    **/
+   private static void checkDeleteActions() throws Exception {
+      InMemoryPizzaStoreRepository r = newRepository();
+
+      int order = order(r, "alice", 1, "Pizza");
+      expect(r.deleteOrder(order), "an order is deleted");
+      expect(r.listOrderLines(order).isEmpty(), "deleting an order deletes its lines");
+
+      order = order(r, "alice", 1, "Pizza", "Salad");
+      expect(r.deleteItem("Salad"), "an item is deleted");
+      expect(r.listOrderLines(order).size() == 1, "deleting an item deletes its order lines");
+
+      expect(r.deleteUser("alice"), "a user is deleted");
+      expect(r.getOrder(order) == null, "deleting a user deletes their orders");
+      expect(r.listOrderLines(order).isEmpty(), "deleting a user deletes the lines of their orders");
+
+      r.createStore(2, "2 Side St", "Riverside", "California", "yes", 4.0);
+      order = order(r, "bob", 2, "Pizza");
+      expect(r.deleteStore(2), "a store is deleted");
+      expect(r.getOrder(order) == null, "deleting a store deletes its orders");
+      expect(r.listOrderLines(order).isEmpty(), "deleting a store deletes the lines of its orders");
+
+      int delivered = order(r, "bob", 1, "Pizza");
+      int assigned = order(r, "bob", 1, "Pizza");
+      expect(r.claimNextOrder("dan", 1) == delivered && r.completeOrder("dan", delivered), "a driver delivers an order");
+      expect(r.claimNextOrder("dan", 1) == assigned, "a driver claims an order");
+      expect(r.deleteUser("dan"), "a driver is deleted");
+      expect(r.getOrder(delivered).get(5).equals("complete") && r.getOrder(delivered).get(6) == null,
+         "a delivered order keeps its status without a driver");
+      expect(r.getOrder(assigned).get(5).equals("incomplete") && r.getOrder(assigned).get(6) == null,
+         "an assigned order goes back to incomplete when its driver is deleted");
+      r.createUser("erin", "pw", Role.DRIVER, "555");
+      expect(r.claimNextOrder("erin", 1) == assigned && r.completeOrder("erin", assigned),
+         "a released order is claimed and completed by another driver");
+   }//end checkDeleteActions
+
+   /*
+    * placeOrder writes all of an order or none of it
+    **/
+   private static void checkPlaceOrder() throws Exception {
+      final InMemoryPizzaStoreRepository r = newRepository();
+
+      expectState(UNIQUE_VIOLATION, "an item twice in one order", new Statement() {
+         public void run() throws Exception { order(r, "alice", 1, "Pizza", "Pizza"); }
+      });
+      try {
+         r.placeOrder("alice", 1, new BigDecimal("1.00"), Arrays.asList("Pizza", "Salad"), Arrays.asList(1), null);
+         expect(false, "lines without quantities are rejected");
+      } catch (RuntimeException e) {
+         expect(true, "lines without quantities are rejected");
+      }
+      expect(r.listOrders(null, 0).isEmpty(), "a rejected order inserts nothing");
+
+      try {
+         r.placeOrder("alice", 1, new BigDecimal("1.00"), Arrays.asList("Pizza"), Arrays.asList(1), Arrays.asList(new BigDecimal("9.99")));
+         expect(false, "an order priced from an old price is rejected");
+      } catch (PriceChangedException e) {
+         expect(true, "an order priced from an old price is rejected");
+      }
+      expect(r.listOrders(null, 0).isEmpty(), "an order with a changed price inserts nothing");
+   }//end checkPlaceOrder
+
+   /*
+    * Drivers claiming orders of the same stores at once get every order
+    * exactly once, while customers keep placing orders
+    **/
+   private static void checkConcurrentClaims(int drivers, int stores, int ordersPerStore) throws Exception {
+      final InMemoryPizzaStoreRepository r = newRepository();
+      for (int s = 2; s <= stores; s++)
+         r.createStore(s, s + " Main St", "Riverside", "California", "yes", 4.0);
+      for (int d = 0; d < drivers; d++)
+         r.createUser("driver" + d, "pw", Role.DRIVER, "555");
+
+      final int storeCount = stores;
+      final int perStore = ordersPerStore;
+      final Set<Integer> placed = ConcurrentHashMap.newKeySet();
+      final Set<Integer> claimed = ConcurrentHashMap.newKeySet();
+      final AtomicInteger doubleClaims = new AtomicInteger();
+      final AtomicInteger errors = new AtomicInteger();
+      final CountDownLatch start = new CountDownLatch(1);
+      final CountDownLatch customersDone = new CountDownLatch(storeCount);
+      List<Thread> threads = new ArrayList<Thread>();
+
+      for (int s = 1; s <= storeCount; s++) {
+         final int storeID = s;
+         threads.add(new Thread(new Runnable() {
+            public void run() {
+               try {
+                  start.await();
+                  for (int i = 0; i < perStore; i++)
+                     placed.add(order(r, "alice", storeID, "Pizza"));
+               } catch (Exception e) {
+                  errors.incrementAndGet();
+               } finally {
+                  customersDone.countDown();
+               }
+            }
+         }));
+      }
+      for (int d = 0; d < drivers; d++) {
+         final String driver = "driver" + d;
+         final int firstStore = d % storeCount + 1;
+         threads.add(new Thread(new Runnable() {
+            public void run() {
+               try {
+                  start.await();
+                  int idle = 0;
+                  // keep claiming until the customers are done and every store is empty
+                  while (idle < storeCount) {
+                     boolean finished = customersDone.getCount() == 0;
+                     idle = 0;
+                     for (int s = 0; s < storeCount; s++) {
+                        int orderID = r.claimNextOrder(driver, (firstStore + s - 1) % storeCount + 1);
+                        if (orderID == -1) {
+                           if (finished)
+                              idle++;
+                           continue;
+                        }
+                        if (!claimed.add(orderID))
+                           doubleClaims.incrementAndGet();
+                        if (!r.completeOrder(driver, orderID))
+                           errors.incrementAndGet();
+                     }
+                  }
+               } catch (Exception e) {
+                  errors.incrementAndGet();
+               }
+            }
+         }));
+      }
+      for (Thread t : threads)
+         t.start();
+      start.countDown();
+      for (Thread t : threads)
+         t.join();
+
+      expect(errors.get() == 0, "no statement failed while claiming concurrently");
+      expect(placed.size() == storeCount * perStore, "every concurrent order was placed");
+      expect(doubleClaims.get() == 0, "no order was claimed twice");
+      expect(claimed.equals(placed), "every order was claimed");
+      int complete = 0;
+      for (List<String> o : r.listOrders(null, 0)) {
+         if (o.get(5).equals("complete"))
+            complete++;
+      }
+      expect(complete == placed.size(), "every claimed order was completed");
+   }//end checkConcurrentClaims
+
+   // a repository with two customers, a driver, a store and two items
+   private static InMemoryPizzaStoreRepository newRepository() throws SQLException {
+      InMemoryPizzaStoreRepository r = new InMemoryPizzaStoreRepository();
+      r.createUser("alice", "pw", Role.CUSTOMER, "555");
+      r.createUser("bob", "pw", Role.CUSTOMER, "555");
+      r.createUser("dan", "pw", Role.DRIVER, "555");
+      r.createStore(1, "1 Main St", "Riverside", "California", "yes", 4.0);
+      r.createItem("Pizza", "dough,cheese", "entree", new BigDecimal("10.00"), "cheese pizza");
+      r.createItem("Salad", "lettuce", "sides", new BigDecimal("4.50"), "green salad");
+      return r;
+   }
+
+   // places an order of one of each item, without a price check
+   private static int order(InMemoryPizzaStoreRepository r, String login, int storeID, String... items) throws SQLException {
+      return r.placeOrder(login, storeID, new BigDecimal("1.00"), Arrays.asList(items),
+         new ArrayList<Integer>(Collections.nCopies(items.length, 1)), null);
+   }
+
+   private static String repeat(char c, int count) {
+      char[] chars = new char[count];
+      Arrays.fill(chars, c);
+      return new String(chars);
+   }
+
+   private static void expect(boolean ok, String what) {
+      checks++;
+      if (!ok) {
+         failures++;
+         System.out.println("FAIL: " + what);
+      }
+   }
+
+   private static void expectState(String sqlState, String what, Statement statement) {
+      try {
+         statement.run();
+         expect(false, what + " is rejected with " + sqlState);
+      } catch (SQLException e) {
+         expect(sqlState.equals(e.getSQLState()), what + " is rejected with " + sqlState + ", got " + e.getSQLState());
+      } catch (Exception e) {
+         expect(false, what + " is rejected with " + sqlState + ", got " + e);
+      }
+   }
+}//end RepositoryCheck
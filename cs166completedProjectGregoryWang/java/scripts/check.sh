@@ -0,0 +1,10 @@
+#!/bin/bash
+DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )"
+CLASSES=$(mktemp -d)
+trap 'rm -rf $CLASSES' EXIT
+
+# compile the java program with the in-memory repository checks
+javac -d $CLASSES $DIR/../src/*.java $DIR/../check/*.java || exit 1
+
+#check the in-memory repository against the constraints of create_tables.sql
+java -cp $CLASSES RepositoryCheck $DIR/../../data
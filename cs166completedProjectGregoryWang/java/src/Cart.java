@@ -0,0 +1,129 @@
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Items of an order being placed, priced from a PriceList when they are
+ * added. Line and order totals are computed in long cents from arrays held
+ * by the cart, without allocating or querying the database.
+ *
+ */
+public class Cart {
+
+   private final PriceList prices;
+   private final int storeID;
+
+   // one entry per distinct item, in the order they were added
+   private String[] items = new String[8];
+   private long[] cents = new long[8];
+   private int[] quantities = new int[8];
+   private int size = 0;
+
+   Cart(PriceList prices, int storeID) {
+      this.prices = prices;
+      this.storeID = storeID;
+   }
+
+   /*
+    * Adds quantity units of an item. Adding an item already in the cart
+    * increases its quantity, since an order has one line per item.
+    **/
+   public void add(String itemName, int quantity) {
+      if (quantity <= 0) {
+         throw new RuntimeException("No negative item quantities");
+      }
+      for (int i = 0; i < this.size; i++) {
+         if (this.items[i].equals(itemName)) {
+            this.quantities[i] = Math.addExact(this.quantities[i], quantity);
+            return;
+         }
+      }
+      long cents = this.prices.price(itemName);
+      if (cents < 0) {
+         throw new RuntimeException("No such item exists: " + itemName);
+      }
+      if (this.size == this.items.length)
+         grow();
+      this.items[this.size] = itemName;
+      this.cents[this.size] = cents;
+      this.quantities[this.size] = quantity;
+      this.size++;
+   }
+
+   public int size() {
+      return this.size;
+   }
+
+   public int storeID() {
+      return this.storeID;
+   }
+
+   public String item(int i) {
+      return this.items[i];
+   }
+
+   public int quantity(int i) {
+      return this.quantities[i];
+   }
+
+   /*
+    * Returns the price of line i in cents
+    **/
+   public long lineTotal(int i) {
+      return Math.multiplyExact(this.cents[i], (long) this.quantities[i]);
+   }
+
+   /*
+    * Returns the price of the whole cart in cents. Throws if it does not fit
+    * the decimal(10,2) totalPrice column.
+    **/
+   public long total() {
+      long total = 0;
+      for (int i = 0; i < this.size; i++)
+         total = Math.addExact(total, lineTotal(i));
+      if (total > PriceList.MAX_CENTS) {
+         throw new RuntimeException("Order total is too large");
+      }
+      return total;
+   }
+
+   /*
+    * Item names and quantities in the form PizzaStoreRepository.placeOrder takes
+    **/
+   public List<String> itemNames() {
+      List<String> result = new ArrayList<String>(this.size);
+      for (int i = 0; i < this.size; i++)
+         result.add(this.items[i]);
+      return result;
+   }
+
+   /*
+    * The Items prices the lines were priced from, for placeOrder to check
+    **/
+   public List<BigDecimal> prices() {
+      List<BigDecimal> result = new ArrayList<BigDecimal>(this.size);
+      for (int i = 0; i < this.size; i++)
+         result.add(PriceList.toDecimal(this.cents[i]));
+      return result;
+   }
+
+   public List<Integer> quantities() {
+      List<Integer> result = new ArrayList<Integer>(this.size);
+      for (int i = 0; i < this.size; i++)
+         result.add(this.quantities[i]);
+      return result;
+   }
+
+   private void grow() {
+      int n = this.items.length * 2;
+      String[] items = new String[n];
+      long[] cents = new long[n];
+      int[] quantities = new int[n];
+      System.arraycopy(this.items, 0, items, 0, this.size);
+      System.arraycopy(this.cents, 0, cents, 0, this.size);
+      System.arraycopy(this.quantities, 0, quantities, 0, this.size);
+      this.items = items;
+      this.cents = cents;
+      this.quantities = quantities;
+   }
+}//end Cart
@@ -0,0 +1,808 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * PizzaStoreRepository kept entirely in memory, for running the application
+ * and concurrency tests without a Postgres server.
+ *
+ * Tables are concurrent maps keyed by their primary key and the indexes of
+ * create_indexes.sql that the queries rely on are kept as sorted sets. Rows
+ * are immutable and replaced on update, so readers never lock. Writers
+ * serialize on a single lock and check the constraints of
+ * create_tables.sql (primary keys, foreign keys, NOT NULL, varchar lengths,
+ * decimal(10,2) rounding and range, ON DELETE CASCADE / SET NULL) before
+ * changing anything, the same way Postgres rejects a statement as a whole.
+ *
+ */
+public class InMemoryPizzaStoreRepository implements PizzaStoreRepository {
+
+   private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+   // SQLStates used by Postgres for constraint violations
+   private static final String STRING_DATA_RIGHT_TRUNCATION = "22001";
+   private static final String NUMERIC_VALUE_OUT_OF_RANGE = "22003";
+   private static final String NOT_NULL_VIOLATION = "23502";
+   private static final String FOREIGN_KEY_VIOLATION = "23503";
+   private static final String UNIQUE_VIOLATION = "23505";
+
+   // tables, keyed by primary key
+   private final ConcurrentMap<String, UserRow> users = new ConcurrentHashMap<String, UserRow>();
+   private final ConcurrentSkipListMap<String, ItemRow> items = new ConcurrentSkipListMap<String, ItemRow>();
+   private final ConcurrentMap<Integer, StoreRow> stores = new ConcurrentHashMap<Integer, StoreRow>();
+   private final ConcurrentSkipListMap<Integer, OrderRow> orders = new ConcurrentSkipListMap<Integer, OrderRow>();
+   private final ConcurrentSkipListMap<LineKey, Integer> orderLines = new ConcurrentSkipListMap<LineKey, Integer>();
+
+   // index_Timestamp, and the same ordering per user for order history
+   private final ConcurrentSkipListSet<OrderKey> ordersByTime = new ConcurrentSkipListSet<OrderKey>();
+   private final ConcurrentMap<String, ConcurrentSkipListSet<OrderKey>> ordersByLogin = new ConcurrentHashMap<String, ConcurrentSkipListSet<OrderKey>>();
+
+   // index_incompleteOrders: orders waiting for a driver, oldest first per store
+   private final ConcurrentMap<Integer, ConcurrentSkipListSet<OrderKey>> incompleteByStore = new ConcurrentHashMap<Integer, ConcurrentSkipListSet<OrderKey>>();
+
+   // held by every statement that changes a table
+   private final Object writeLock = new Object();
+
+   /**
+    * Creates an empty repository
+    */
+   public InMemoryPizzaStoreRepository() {
+   }
+
+   /**
+    * Creates a repository filled with the csv files load_data.sql copies
+    *
+    * @param dataDir the directory holding users.csv, items.csv, store.csv,
+    *        foodorder.csv and itemsinorder.csv
+    * @return the loaded repository
+    * @throws java.io.IOException when a file cannot be read
+    * @throws java.sql.SQLException when the data violates a constraint
+    */
+   public static InMemoryPizzaStoreRepository load(String dataDir) throws IOException, SQLException {
+      InMemoryPizzaStoreRepository repository = new InMemoryPizzaStoreRepository();
+      // text columns keep their blanks like COPY does, numbers and
+      // timestamps ignore them like the Postgres input functions do
+      for (List<String> r : readCsv(new File(dataDir, "users.csv")))
+         repository.insertUser(r.get(0), r.get(1), Role.fromDb(r.get(2)), r.get(3), r.get(4));
+      for (List<String> r : readCsv(new File(dataDir, "items.csv")))
+         repository.createItem(r.get(0), r.get(1), r.get(2), new BigDecimal(r.get(3).trim()), r.get(4));
+      for (List<String> r : readCsv(new File(dataDir, "store.csv")))
+         repository.createStore(Integer.parseInt(r.get(0).trim()), r.get(1), r.get(2), r.get(3), r.get(4),
+            r.get(5) == null ? null : Double.valueOf(r.get(5)));
+      for (List<String> r : readCsv(new File(dataDir, "foodorder.csv")))
+         repository.insertOrder(newOrder(Integer.parseInt(r.get(0).trim()), r.get(1), Integer.parseInt(r.get(2).trim()), new BigDecimal(r.get(3).trim()),
+            LocalDateTime.parse(r.get(4).trim(), TIMESTAMP), r.get(5) == null ? null : OrderStatus.fromDb(r.get(5))));
+      for (List<String> r : readCsv(new File(dataDir, "itemsinorder.csv")))
+         repository.insertOrderLine(Integer.parseInt(r.get(0).trim()), r.get(1), Integer.valueOf(r.get(2).trim()));
+      return repository;
+   }//end load
+
+   // ---- Users ----
+
+   @Override
+   public List<List<String>> listUsers() {
+      List<List<String>> result = new ArrayList<List<String>>();
+      for (UserRow u : this.users.values())
+         result.add(u.record());
+      return result;
+   }
+
+   @Override
+   public List<String> getUser(String login) {
+      UserRow u = this.users.get(login);
+      return u == null ? null : u.record();
+   }
+
+   @Override
+   public Role getRole(String login) {
+      UserRow u = this.users.get(login);
+      if (u == null) {
+         throw new RuntimeException("No such user exists");
+      }
+      return u.role;
+   }
+
+   @Override
+   public boolean checkCredentials(String login, String password) {
+      UserRow u = this.users.get(login);
+      return u != null && u.password.equals(password);
+   }
+
+   @Override
+   public void createUser(String login, String password, Role role, String phoneNum) throws SQLException {
+      insertUser(login, password, role, null, phoneNum);
+   }
+
+   @Override
+   public boolean updateFavoriteItems(String login, String favoriteItems) {
+      synchronized (this.writeLock) {
+         UserRow u = this.users.get(login);
+         if (u == null)
+            return false;
+         this.users.put(login, new UserRow(u.login, u.password, u.role, favoriteItems, u.phoneNum));
+         return true;
+      }
+   }
+
+   @Override
+   public boolean updatePhoneNum(String login, String phoneNum) throws SQLException {
+      notNull(phoneNum, "phonenum");
+      phoneNum = varchar(phoneNum, 20);
+      synchronized (this.writeLock) {
+         UserRow u = this.users.get(login);
+         if (u == null)
+            return false;
+         this.users.put(login, new UserRow(u.login, u.password, u.role, u.favoriteItems, phoneNum));
+         return true;
+      }
+   }
+
+   @Override
+   public boolean updateRole(String login, Role role) throws SQLException {
+      notNull(role, "role");
+      synchronized (this.writeLock) {
+         UserRow u = this.users.get(login);
+         if (u == null)
+            return false;
+         this.users.put(login, new UserRow(u.login, u.password, role, u.favoriteItems, u.phoneNum));
+         return true;
+      }
+   }
+
+   @Override
+   public boolean updateLogin(String oldLogin, String newLogin) throws SQLException {
+      notNull(newLogin, "login");
+      newLogin = varchar(newLogin, 50);
+      synchronized (this.writeLock) {
+         UserRow u = this.users.get(oldLogin);
+         if (u == null)
+            return false;
+         if (oldLogin.equals(newLogin))
+            return true;
+         if (this.users.containsKey(newLogin))
+            throw violation(UNIQUE_VIOLATION, "duplicate key value violates unique constraint \"users_pkey\"");
+         // the foreign keys of FoodOrder have no ON UPDATE action
+         if (!ordersOf(oldLogin).isEmpty() || isDriverOfAnyOrder(oldLogin))
+            throw violation(FOREIGN_KEY_VIOLATION, "update on table \"users\" violates foreign key constraint on table \"foodorder\"");
+         // the new row goes in first so a reader always finds one of the two
+         this.users.put(newLogin, new UserRow(newLogin, u.password, u.role, u.favoriteItems, u.phoneNum));
+         this.users.remove(oldLogin);
+         return true;
+      }
+   }
+
+   @Override
+   public boolean deleteUser(String login) {
+      synchronized (this.writeLock) {
+         if (this.users.remove(login) == null)
+            return false;
+         // FoodOrder.login: ON DELETE CASCADE
+         for (OrderKey k : new ArrayList<OrderKey>(ordersOf(login)))
+            removeOrder(k.orderID);
+         this.ordersByLogin.remove(login);
+         // FoodOrder.driverLogin: ON DELETE SET NULL, and the
+         // release_driver_orders trigger puts assigned orders back in the queue
+         for (OrderRow o : this.orders.values()) {
+            if (!login.equals(o.driverLogin))
+               continue;
+            if (o.orderStatus == OrderStatus.ASSIGNED)
+               replaceOrder(o, o.with(OrderStatus.INCOMPLETE, null));
+            else
+               this.orders.put(o.orderID, o.with(o.orderStatus, null));
+         }
+         return true;
+      }
+   }
+
+   // ---- Items ----
+
+   @Override
+   public List<List<String>> listItems(String typeOfItem, BigDecimal maxPrice, int sort) {
+      List<ItemRow> matches = new ArrayList<ItemRow>();
+      for (ItemRow i : this.items.values()) {
+         if (typeOfItem != null && !i.typeOfItem.contains(typeOfItem))
+            continue;
+         if (maxPrice != null && i.price.compareTo(maxPrice) >= 0)
+            continue;
+         matches.add(i);
+      }
+      if (sort == PRICE_ASC)
+         Collections.sort(matches, ItemRow.BY_PRICE);
+      else if (sort == PRICE_DESC)
+         Collections.sort(matches, Collections.reverseOrder(ItemRow.BY_PRICE));
+      List<List<String>> result = new ArrayList<List<String>>();
+      for (ItemRow i : matches)
+         result.add(i.record());
+      return result;
+   }
+
+   @Override
+   public BigDecimal getItemPrice(String itemName) {
+      ItemRow i = this.items.get(itemName);
+      return i == null ? null : i.price;
+   }
+
+   @Override
+   public boolean itemExists(String itemName) {
+      return this.items.containsKey(itemName);
+   }
+
+   @Override
+   public void createItem(String itemName, String ingredients, String typeOfItem, BigDecimal price, String description) throws SQLException {
+      ItemRow row = new ItemRow(itemName, ingredients, typeOfItem, price, description);
+      synchronized (this.writeLock) {
+         if (this.items.putIfAbsent(row.itemName, row) != null)
+            throw violation(UNIQUE_VIOLATION, "duplicate key value violates unique constraint \"items_pkey\"");
+      }
+   }
+
+   @Override
+   public boolean updateItem(String itemName, String ingredients, String typeOfItem, BigDecimal price, String description) throws SQLException {
+      ItemRow row = new ItemRow(itemName, ingredients, typeOfItem, price, description);
+      synchronized (this.writeLock) {
+         return this.items.replace(row.itemName, row) != null;
+      }
+   }
+
+   @Override
+   public boolean deleteItem(String itemName) {
+      synchronized (this.writeLock) {
+         if (this.items.remove(itemName) == null)
+            return false;
+         // ItemsInOrder.itemName: ON DELETE CASCADE
+         for (LineKey k : this.orderLines.keySet()) {
+            if (k.itemName.equals(itemName))
+               this.orderLines.remove(k);
+         }
+         return true;
+      }
+   }
+
+   // ---- Stores ----
+
+   @Override
+   public List<List<String>> listStores() {
+      List<List<String>> result = new ArrayList<List<String>>();
+      for (StoreRow s : this.stores.values())
+         result.add(s.record());
+      return result;
+   }
+
+   @Override
+   public void createStore(int storeID, String address, String city, String state, String isOpen, Double reviewScore) throws SQLException {
+      StoreRow row = new StoreRow(storeID, address, city, state, isOpen, reviewScore);
+      synchronized (this.writeLock) {
+         if (this.stores.putIfAbsent(storeID, row) != null)
+            throw violation(UNIQUE_VIOLATION, "duplicate key value violates unique constraint \"store_pkey\"");
+      }
+   }
+
+   @Override
+   public boolean deleteStore(int storeID) {
+      synchronized (this.writeLock) {
+         if (this.stores.remove(storeID) == null)
+            return false;
+         // FoodOrder.storeID: ON DELETE CASCADE
+         for (OrderRow o : this.orders.values()) {
+            if (o.storeID == storeID)
+               removeOrder(o.orderID);
+         }
+         this.incompleteByStore.remove(storeID);
+         return true;
+      }
+   }
+
+   // ---- Orders and order lines ----
+
+   @Override
+   public int placeOrder(String login, int storeID, BigDecimal totalPrice, List<String> itemNames, List<Integer> quantities, List<BigDecimal> itemPrices) throws SQLException {
+      synchronized (this.writeLock) {
+         //orderID is the max existing orderID + 1
+         int orderID = this.orders.isEmpty() ? 1 : this.orders.lastKey() + 1;
+         OrderRow order = newOrder(orderID, login, storeID, totalPrice, LocalDateTime.now(), OrderStatus.INCOMPLETE);
+         checkOrder(order);
+         // check every line before inserting anything, like a rolled back transaction
+         List<String> names = new ArrayList<String>(itemNames.size());
+         Set<String> seen = new HashSet<String>();
+         for (int i = 0; i < itemNames.size(); i++) {
+            String itemName = checkOrderLine(itemNames.get(i), quantities.get(i));
+            if (!seen.add(itemName))
+               throw violation(UNIQUE_VIOLATION, "duplicate key value violates unique constraint \"itemsinorder_pkey\"");
+            if (itemPrices != null && this.items.get(itemName).price.compareTo(itemPrices.get(i)) != 0)
+               throw new PriceChangedException(itemName);
+            names.add(itemName);
+         }
+         // readers take no lock: the lines go in first so an order is never
+         // visible without them
+         for (int i = 0; i < names.size(); i++)
+            this.orderLines.put(new LineKey(orderID, names.get(i)), quantities.get(i));
+         addOrder(order);
+         return orderID;
+      }
+   }//end placeOrder
+
+   @Override
+   public List<List<String>> listOrders(String login, int limit) {
+      NavigableSet<OrderKey> index = login == null ? this.ordersByTime : ordersOf(login);
+      List<List<String>> result = new ArrayList<List<String>>();
+      // newest first
+      for (OrderKey k : index.descendingSet()) {
+         if (limit > 0 && result.size() == limit)
+            break;
+         OrderRow o = this.orders.get(k.orderID);
+         if (o != null)
+            result.add(o.record());
+      }
+      return result;
+   }
+
+   @Override
+   public List<String> getOrder(int orderID) {
+      OrderRow o = this.orders.get(orderID);
+      return o == null ? null : o.record();
+   }
+
+   @Override
+   public List<List<String>> listOrderLines(int orderID) {
+      List<List<String>> result = new ArrayList<List<String>>();
+      for (Map.Entry<LineKey, Integer> e : linesOf(orderID).entrySet())
+         result.add(Arrays.asList(String.valueOf(orderID), e.getKey().itemName, e.getValue().toString()));
+      return result;
+   }
+
+   @Override
+   public boolean updateOrderStatus(int orderID, OrderStatus status) {
+      if (status == OrderStatus.ASSIGNED) {
+         throw new RuntimeException("Orders are assigned by claiming them as a driver");
+      }
+      synchronized (this.writeLock) {
+         OrderRow o = this.orders.get(orderID);
+         if (o == null)
+            return false;
+         // an order put back in the queue no longer belongs to its driver
+         replaceOrder(o, o.with(status, status == OrderStatus.INCOMPLETE ? null : o.driverLogin));
+         return true;
+      }
+   }
+
+   @Override
+   public int claimNextOrder(String driver, int storeID) throws SQLException {
+      synchronized (this.writeLock) {
+         if (!this.users.containsKey(driver))
+            throw violation(FOREIGN_KEY_VIOLATION, "insert or update on table \"foodorder\" violates foreign key constraint on table \"users\"");
+         ConcurrentSkipListSet<OrderKey> waiting = this.incompleteByStore.get(storeID);
+         if (waiting == null || waiting.isEmpty())
+            return -1;
+         OrderKey k = waiting.first();
+         OrderRow o = this.orders.get(k.orderID);
+         replaceOrder(o, o.with(OrderStatus.ASSIGNED, driver));
+         return o.orderID;
+      }
+   }//end claimNextOrder
+
+   @Override
+   public boolean completeOrder(String driver, int orderID) {
+      synchronized (this.writeLock) {
+         OrderRow o = this.orders.get(orderID);
+         if (o == null || o.orderStatus != OrderStatus.ASSIGNED || !driver.equals(o.driverLogin))
+            return false;
+         replaceOrder(o, o.with(OrderStatus.COMPLETE, o.driverLogin));
+         return true;
+      }
+   }//end completeOrder
+
+   @Override
+   public boolean deleteOrder(int orderID) {
+      synchronized (this.writeLock) {
+         return removeOrder(orderID);
+      }
+   }
+
+   @Override
+   public void close() {
+      // nothing to release
+   }
+
+   // ---- writes, callers hold writeLock unless noted ----
+
+   // takes writeLock itself
+   private void insertUser(String login, String password, Role role, String favoriteItems, String phoneNum) throws SQLException {
+      notNull(login, "login");
+      notNull(password, "password");
+      notNull(role, "role");
+      notNull(phoneNum, "phonenum");
+      UserRow row = new UserRow(varchar(login, 50), varchar(password, 30), role, favoriteItems, varchar(phoneNum, 20));
+      synchronized (this.writeLock) {
+         if (this.users.putIfAbsent(row.login, row) != null)
+            throw violation(UNIQUE_VIOLATION, "duplicate key value violates unique constraint \"users_pkey\"");
+      }
+   }
+
+   // takes writeLock itself
+   private void insertOrder(OrderRow row) throws SQLException {
+      synchronized (this.writeLock) {
+         checkOrder(row);
+         if (this.orders.containsKey(row.orderID))
+            throw violation(UNIQUE_VIOLATION, "duplicate key value violates unique constraint \"foodorder_pkey\"");
+         addOrder(row);
+      }
+   }
+
+   // takes writeLock itself
+   private void insertOrderLine(int orderID, String itemName, Integer quantity) throws SQLException {
+      synchronized (this.writeLock) {
+         if (!this.orders.containsKey(orderID))
+            throw violation(FOREIGN_KEY_VIOLATION, "insert or update on table \"itemsinorder\" violates foreign key constraint on table \"foodorder\"");
+         itemName = checkOrderLine(itemName, quantity);
+         if (this.orderLines.putIfAbsent(new LineKey(orderID, itemName), quantity) != null)
+            throw violation(UNIQUE_VIOLATION, "duplicate key value violates unique constraint \"itemsinorder_pkey\"");
+      }
+   }
+
+   // a new FoodOrder row with the column types of create_tables.sql applied
+   private static OrderRow newOrder(int orderID, String login, int storeID, BigDecimal totalPrice, LocalDateTime orderTimestamp, OrderStatus orderStatus) throws SQLException {
+      notNull(login, "login");
+      notNull(totalPrice, "totalprice");
+      notNull(orderTimestamp, "ordertimestamp");
+      return new OrderRow(orderID, varchar(login, 50), storeID, decimal(totalPrice), orderTimestamp, orderStatus, null);
+   }
+
+   private void checkOrder(OrderRow row) throws SQLException {
+      if (!this.users.containsKey(row.login))
+         throw violation(FOREIGN_KEY_VIOLATION, "insert or update on table \"foodorder\" violates foreign key constraint on table \"users\"");
+      if (!this.stores.containsKey(row.storeID))
+         throw violation(FOREIGN_KEY_VIOLATION, "insert or update on table \"foodorder\" violates foreign key constraint on table \"store\"");
+   }
+
+   // returns the itemName as the varchar(50) column stores it
+   private String checkOrderLine(String itemName, Integer quantity) throws SQLException {
+      notNull(itemName, "itemname");
+      notNull(quantity, "quantity");
+      itemName = varchar(itemName, 50);
+      if (!this.items.containsKey(itemName))
+         throw violation(FOREIGN_KEY_VIOLATION, "insert or update on table \"itemsinorder\" violates foreign key constraint on table \"items\"");
+      return itemName;
+   }
+
+   private void addOrder(OrderRow row) {
+      this.orders.put(row.orderID, row);
+      OrderKey k = row.key();
+      this.ordersByTime.add(k);
+      index(this.ordersByLogin, row.login).add(k);
+      if (row.orderStatus == OrderStatus.INCOMPLETE)
+         index(this.incompleteByStore, row.storeID).add(k);
+   }
+
+   private void replaceOrder(OrderRow oldRow, OrderRow newRow) {
+      this.orders.put(newRow.orderID, newRow);
+      if (oldRow.orderStatus == OrderStatus.INCOMPLETE && newRow.orderStatus != OrderStatus.INCOMPLETE)
+         index(this.incompleteByStore, oldRow.storeID).remove(oldRow.key());
+      else if (oldRow.orderStatus != OrderStatus.INCOMPLETE && newRow.orderStatus == OrderStatus.INCOMPLETE)
+         index(this.incompleteByStore, newRow.storeID).add(newRow.key());
+   }
+
+   private boolean removeOrder(int orderID) {
+      OrderRow o = this.orders.remove(orderID);
+      if (o == null)
+         return false;
+      OrderKey k = o.key();
+      this.ordersByTime.remove(k);
+      index(this.ordersByLogin, o.login).remove(k);
+      index(this.incompleteByStore, o.storeID).remove(k);
+      // ItemsInOrder.orderID: ON DELETE CASCADE
+      linesOf(orderID).clear();
+      return true;
+   }
+
+   // ---- reads ----
+
+   private NavigableSet<OrderKey> ordersOf(String login) {
+      NavigableSet<OrderKey> set = this.ordersByLogin.get(login);
+      return set == null ? Collections.<OrderKey>emptyNavigableSet() : set;
+   }
+
+   private boolean isDriverOfAnyOrder(String login) {
+      for (OrderRow o : this.orders.values()) {
+         if (login.equals(o.driverLogin))
+            return true;
+      }
+      return false;
+   }
+
+   // the order lines of one order, a range of the (orderID, itemName) key
+   private ConcurrentNavigableMap<LineKey, Integer> linesOf(int orderID) {
+      return this.orderLines.subMap(new LineKey(orderID, ""), true, new LineKey(orderID + 1, ""), false);
+   }
+
+   private static <K> ConcurrentSkipListSet<OrderKey> index(ConcurrentMap<K, ConcurrentSkipListSet<OrderKey>> indexes, K key) {
+      ConcurrentSkipListSet<OrderKey> set = indexes.get(key);
+      if (set == null) {
+         ConcurrentSkipListSet<OrderKey> created = new ConcurrentSkipListSet<OrderKey>();
+         set = indexes.putIfAbsent(key, created);
+         if (set == null)
+            set = created;
+      }
+      return set;
+   }
+
+   private static void notNull(Object value, String column) throws SQLException {
+      if (value == null)
+         throw violation(NOT_NULL_VIOLATION, "null value in column \"" + column + "\" violates not-null constraint");
+   }
+
+   // varchar(length): too long values fail, unless only trailing blanks
+   // are too many, which Postgres silently cuts off
+   private static String varchar(String value, int length) throws SQLException {
+      if (value == null || value.codePointCount(0, value.length()) <= length)
+         return value;
+      int end = value.offsetByCodePoints(0, length);
+      if (!value.substring(end).replace(" ", "").isEmpty())
+         throw violation(STRING_DATA_RIGHT_TRUNCATION, "value too long for type character varying(" + length + ")");
+      return value.substring(0, end);
+   }
+
+   // decimal(10,2): rounded half away from zero to 2 places, at most 8 digits before the point
+   private static BigDecimal decimal(BigDecimal value) throws SQLException {
+      if (value == null)
+         return null;
+      BigDecimal rounded = value.setScale(2, RoundingMode.HALF_UP);
+      if (rounded.precision() - rounded.scale() > 8)
+         throw violation(NUMERIC_VALUE_OUT_OF_RANGE, "numeric field overflow");
+      return rounded;
+   }
+
+   private static SQLException violation(String sqlState, String message) {
+      return new SQLException("ERROR:  " + message, sqlState);
+   }
+
+   private static String format(BigDecimal value) {
+      return value.toPlainString();
+   }
+
+   // ---- csv files, in the format COPY ... WITH DELIMITER ',' CSV HEADER reads ----
+
+   private static List<List<String>> readCsv(File file) throws IOException {
+      List<List<String>> records = new ArrayList<List<String>>();
+      BufferedReader reader = new BufferedReader(new FileReader(file));
+      try {
+         reader.readLine(); // header
+         String line;
+         while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty())
+               records.add(parseCsvLine(line));
+         }
+      } finally {
+         reader.close();
+      }
+      return records;
+   }
+
+   // like COPY CSV: text outside quotes is kept as is (blanks included),
+   // quotes may start anywhere in a field, and only an unquoted empty field
+   // is NULL
+   private static List<String> parseCsvLine(String line) {
+      List<String> fields = new ArrayList<String>();
+      StringBuilder field = new StringBuilder();
+      boolean quoted = false;
+      boolean wasQuoted = false;
+      for (int i = 0; i < line.length(); i++) {
+         char c = line.charAt(i);
+         if (quoted) {
+            if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+               field.append('"');
+               i++;
+            } else if (c == '"') {
+               quoted = false;
+            } else {
+               field.append(c);
+            }
+         } else if (c == '"') {
+            quoted = true;
+            wasQuoted = true;
+         } else if (c == ',') {
+            fields.add(endField(field, wasQuoted));
+            field.setLength(0);
+            wasQuoted = false;
+         } else {
+            field.append(c);
+         }
+      }
+      fields.add(endField(field, wasQuoted));
+      return fields;
+   }
+
+   private static String endField(StringBuilder field, boolean wasQuoted) {
+      if (!wasQuoted && field.length() == 0)
+         return null;
+      return field.toString();
+   }
+
+   // ---- rows and index keys ----
+
+   private static final class UserRow {
+      final String login;
+      final String password;
+      final Role role;
+      final String favoriteItems;
+      final String phoneNum;
+
+      UserRow(String login, String password, Role role, String favoriteItems, String phoneNum) {
+         this.login = login;
+         this.password = password;
+         this.role = role;
+         this.favoriteItems = favoriteItems;
+         this.phoneNum = phoneNum;
+      }
+
+      List<String> record() {
+         return Arrays.asList(this.login, this.password, this.role.label(), this.favoriteItems, this.phoneNum);
+      }
+   }
+
+   private static final class ItemRow {
+      static final Comparator<ItemRow> BY_PRICE = new Comparator<ItemRow>() {
+         public int compare(ItemRow a, ItemRow b) {
+            return a.price.compareTo(b.price);
+         }
+      };
+
+      final String itemName;
+      final String ingredients;
+      final String typeOfItem;
+      final BigDecimal price;
+      final String description;
+
+      ItemRow(String itemName, String ingredients, String typeOfItem, BigDecimal price, String description) throws SQLException {
+         notNull(itemName, "itemname");
+         notNull(ingredients, "ingredients");
+         notNull(typeOfItem, "typeofitem");
+         notNull(price, "price");
+         this.itemName = varchar(itemName, 50);
+         this.ingredients = varchar(ingredients, 300);
+         this.typeOfItem = varchar(typeOfItem, 30);
+         this.price = decimal(price);
+         this.description = description;
+      }
+
+      List<String> record() {
+         return Arrays.asList(this.itemName, this.ingredients, this.typeOfItem, format(this.price), this.description);
+      }
+   }
+
+   private static final class StoreRow {
+      final int storeID;
+      final String address;
+      final String city;
+      final String state;
+      final String isOpen;
+      final Double reviewScore;
+
+      StoreRow(int storeID, String address, String city, String state, String isOpen, Double reviewScore) throws SQLException {
+         notNull(address, "address");
+         notNull(city, "city");
+         notNull(state, "state");
+         notNull(isOpen, "isopen");
+         this.storeID = storeID;
+         this.address = varchar(address, 50);
+         this.city = varchar(city, 50);
+         this.state = varchar(state, 60);
+         this.isOpen = varchar(isOpen, 60);
+         this.reviewScore = reviewScore;
+      }
+
+      List<String> record() {
+         String score = null;
+         if (this.reviewScore != null) {
+            // Postgres prints whole floats without a fraction
+            double d = this.reviewScore.doubleValue();
+            score = d == Math.rint(d) ? String.valueOf((long) d) : this.reviewScore.toString();
+         }
+         return Arrays.asList(String.valueOf(this.storeID), this.address, this.city, this.state, this.isOpen, score);
+      }
+   }
+
+   private static final class OrderRow {
+      final int orderID;
+      final String login;
+      final int storeID;
+      final BigDecimal totalPrice;
+      final LocalDateTime orderTimestamp;
+      final OrderStatus orderStatus;
+      final String driverLogin;
+
+      OrderRow(int orderID, String login, int storeID, BigDecimal totalPrice, LocalDateTime orderTimestamp, OrderStatus orderStatus, String driverLogin) {
+         this.orderID = orderID;
+         this.login = login;
+         this.storeID = storeID;
+         this.totalPrice = totalPrice;
+         this.orderTimestamp = orderTimestamp;
+         this.orderStatus = orderStatus;
+         this.driverLogin = driverLogin;
+      }
+
+      OrderRow with(OrderStatus orderStatus, String driverLogin) {
+         return new OrderRow(this.orderID, this.login, this.storeID, this.totalPrice, this.orderTimestamp, orderStatus, driverLogin);
+      }
+
+      OrderKey key() {
+         return new OrderKey(this.orderTimestamp, this.orderID);
+      }
+
+      List<String> record() {
+         return Arrays.asList(String.valueOf(this.orderID), this.login, String.valueOf(this.storeID), format(this.totalPrice),
+            TIMESTAMP.format(this.orderTimestamp), this.orderStatus == null ? null : this.orderStatus.label(), this.driverLogin);
+      }
+   }
+
+   // (orderTimestamp, orderID), oldest first
+   private static final class OrderKey implements Comparable<OrderKey> {
+      final LocalDateTime orderTimestamp;
+      final int orderID;
+
+      OrderKey(LocalDateTime orderTimestamp, int orderID) {
+         this.orderTimestamp = orderTimestamp;
+         this.orderID = orderID;
+      }
+
+      public int compareTo(OrderKey o) {
+         int c = this.orderTimestamp.compareTo(o.orderTimestamp);
+         return c != 0 ? c : Integer.compare(this.orderID, o.orderID);
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         return o instanceof OrderKey && compareTo((OrderKey) o) == 0;
+      }
+
+      @Override
+      public int hashCode() {
+         return this.orderID;
+      }
+   }
+
+   // primary key of ItemsInOrder
+   private static final class LineKey implements Comparable<LineKey> {
+      final int orderID;
+      final String itemName;
+
+      LineKey(int orderID, String itemName) {
+         this.orderID = orderID;
+         this.itemName = itemName;
+      }
+
+      public int compareTo(LineKey o) {
+         int c = Integer.compare(this.orderID, o.orderID);
+         return c != 0 ? c : this.itemName.compareTo(o.itemName);
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         return o instanceof LineKey && compareTo((LineKey) o) == 0;
+      }
+
+      @Override
+      public int hashCode() {
+         return 31 * this.orderID + this.itemName.hashCode();
+      }
+   }
+}//end InMemoryPizzaStoreRepository
@@ -0,0 +1,490 @@
+/*
+ * Template JAVA User Interface
+ * =============================
+ *
+ * Database Management Systems
+ * Department of Computer Science &amp; Engineering
+ * University of California - Riverside
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+
+import java.sql.DriverManager;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.ArrayList;
+
+/**
+ * This class defines a simple embedded SQL utility class that is designed to
+ * work with PostgreSQL JDBC drivers. It implements PizzaStoreRepository on
+ * top of the tables of create_tables.sql.
+ *
+ */
+public class JdbcPizzaStoreRepository implements PizzaStoreRepository {
+
+   private static final String USER_SELECT = select(USER_COLUMNS);
+   private static final String ITEM_SELECT = select(ITEM_COLUMNS);
+   private static final String STORE_SELECT = select(STORE_COLUMNS);
+   private static final String ORDER_SELECT = select(ORDER_COLUMNS);
+   private static final String ORDER_LINE_SELECT = select(ORDER_LINE_COLUMNS);
+
+   // reference to physical database connection.
+   private Connection _connection = null;
+
+   /**
+    * Creates a new instance of JdbcPizzaStoreRepository
+    *
+    * @param dbname the name of the database
+    * @param dbport the port the PostgreSQL server listens on
+    * @param user the user name used to login to the database
+    * @param passwd the user login password
+    * @throws java.sql.SQLException when failed to make a connection.
+    */
+   public JdbcPizzaStoreRepository(String dbname, String dbport, String user, String passwd) throws SQLException {
+      // constructs the connection URL
+      String url = "jdbc:postgresql://localhost:" + dbport + "/" + dbname;
+      System.out.println ("Connection URL: " + url + "\n");
+
+      // obtain a physical connection
+      this._connection = DriverManager.getConnection(url, user, passwd);
+   }//end JdbcPizzaStoreRepository
+
+   /**
+    * Method to execute an update SQL statement.  Update SQL instructions
+    * includes CREATE, INSERT, UPDATE, DELETE, and DROP.
+    *
+    * @param sql the input SQL string
+    * @return the number of rows affected
+    * @throws java.sql.SQLException when update failed
+    */
+   public int executeUpdate (String sql) throws SQLException {
+      // creates a statement object
+      Statement stmt = this._connection.createStatement ();
+
+      // issues the update instruction
+      int rowCount = stmt.executeUpdate (sql);
+
+      // close the instruction
+      stmt.close ();
+      return rowCount;
+   }//end executeUpdate
+
+   /**
+    * Method to execute an input query SQL instruction (i.e. SELECT).  This
+    * method issues the query to the DBMS and outputs the results to
+    * standard out.
+    *
+    * @param query the input query string
+    * @return the number of rows returned
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public int executeQueryAndPrintResult (String query) throws SQLException {
+      // creates a statement object
+      Statement stmt = this._connection.createStatement ();
+
+      // issues the query instruction
+      ResultSet rs = stmt.executeQuery (query);
+
+      /*
+       ** obtains the metadata object for the returned result set.  The metadata
+       ** contains row and column info.
+       */
+      ResultSetMetaData rsmd = rs.getMetaData ();
+      int numCol = rsmd.getColumnCount ();
+      int rowCount = 0;
+
+      // iterates through the result set and output them to standard out.
+      boolean outputHeader = true;
+      while (rs.next()){
+		 if(outputHeader){
+			for(int i = 1; i <= numCol; i++){
+			System.out.print(rsmd.getColumnName(i) + "\t");
+			}
+			System.out.println();
+			outputHeader = false;
+		 }
+         for (int i=1; i<=numCol; ++i)
+            System.out.print (rs.getString (i) + "\t");
+         System.out.println ();
+         ++rowCount;
+      }//end while
+      stmt.close();
+      return rowCount;
+   }//end executeQuery
+
+   /**
+    * Method to execute an input query SQL instruction (i.e. SELECT).  This
+    * method issues the query to the DBMS and returns the results as
+    * a list of records. Each record in turn is a list of attribute values
+    *
+    * @param query the input query string
+    * @return the query result as a list of records
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public List<List<String>> executeQueryAndReturnResult (String query) throws SQLException {
+      // creates a statement object
+      Statement stmt = this._connection.createStatement ();
+
+      // issues the query instruction
+      ResultSet rs = stmt.executeQuery (query);
+
+      /*
+       ** obtains the metadata object for the returned result set.  The metadata
+       ** contains row and column info.
+       */
+      ResultSetMetaData rsmd = rs.getMetaData ();
+      int numCol = rsmd.getColumnCount ();
+      int rowCount = 0;
+
+      // iterates through the result set and saves the data returned by the query.
+      boolean outputHeader = false;
+      List<List<String>> result  = new ArrayList<List<String>>();
+      while (rs.next()){
+        List<String> record = new ArrayList<String>();
+		for (int i=1; i<=numCol; ++i)
+			record.add(rs.getString (i));
+        result.add(record);
+      }//end while
+      stmt.close ();
+      return result;
+   }//end executeQueryAndReturnResult
+
+   /**
+    * Method to execute an input query SQL instruction (i.e. SELECT).  This
+    * method issues the query to the DBMS and returns the number of results
+    *
+    * @param query the input query string
+    * @return the number of rows returned
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public int executeQuery (String query) throws SQLException {
+       // creates a statement object
+       Statement stmt = this._connection.createStatement ();
+
+       // issues the query instruction
+       ResultSet rs = stmt.executeQuery (query);
+
+       int rowCount = 0;
+
+       // iterates through the result set and count nuber of results.
+       while (rs.next()){
+          rowCount++;
+       }//end while
+       stmt.close ();
+       return rowCount;
+   }
+
+   /**
+    * Method to fetch the last value from sequence. This
+    * method issues the query to the DBMS and returns the current
+    * value of sequence used for autogenerated keys
+    *
+    * @param sequence name of the DB sequence
+    * @return current value of a sequence
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public int getCurrSeqVal(String sequence) throws SQLException {
+	Statement stmt = this._connection.createStatement ();
+
+	ResultSet rs = stmt.executeQuery (String.format("Select currval('%s')", sequence));
+	if (rs.next())
+		return rs.getInt(1);
+	return -1;
+   }
+
+   // ---- Users ----
+
+   @Override
+   public List<List<String>> listUsers() throws SQLException {
+      return executeQueryAndReturnResult("SELECT " + USER_SELECT + " FROM Users");
+   }
+
+   @Override
+   public List<String> getUser(String login) throws SQLException {
+      return first(executeQueryAndReturnResult("SELECT " + USER_SELECT + " FROM Users WHERE login = '" + login + "'"));
+   }
+
+   /**
+    * Method to look up the role of a user. The role column is a user_role
+    * enum in the database and is mapped to the Role enum here.
+    *
+    * @param login the login of the user
+    * @return the role of the user
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   @Override
+   public Role getRole(String login) throws SQLException {
+      List<List<String>> result = executeQueryAndReturnResult("SELECT role FROM Users WHERE login = '" + login + "'");
+      if (result.isEmpty()){
+         throw new RuntimeException("No such user exists");
+      }
+      return Role.fromDb(result.get(0).get(0));
+   }
+
+
+   @Override
+   public boolean checkCredentials(String login, String password) throws SQLException {
+      return executeQuery("SELECT login FROM Users WHERE login = '" + login + "' AND password = '" + password + "'") == 1;
+   }
+
+   @Override
+   public void createUser(String login, String password, Role role, String phoneNum) throws SQLException {
+      executeUpdate("INSERT INTO Users(login, password, role, phoneNum) VALUES('" + login + "','" + password + "', '" + role.label() + "','" + phoneNum + "')");
+   }
+
+   @Override
+   public boolean updateFavoriteItems(String login, String favoriteItems) throws SQLException {
+      return executeUpdate("UPDATE Users SET favoriteItems = '" + favoriteItems + "' WHERE login = '" + login + "'") == 1;
+   }
+
+   @Override
+   public boolean updatePhoneNum(String login, String phoneNum) throws SQLException {
+      return executeUpdate("UPDATE Users SET phoneNum = '" + phoneNum + "' WHERE login = '" + login + "'") == 1;
+   }
+
+   @Override
+   public boolean updateRole(String login, Role role) throws SQLException {
+      return executeUpdate("UPDATE Users SET role = '" + role.label() + "' WHERE login = '" + login + "'") == 1;
+   }
+
+   @Override
+   public boolean updateLogin(String oldLogin, String newLogin) throws SQLException {
+      return executeUpdate("UPDATE Users SET login = '" + newLogin + "' WHERE login = '" + oldLogin + "'") == 1;
+   }
+
+   @Override
+   public boolean deleteUser(String login) throws SQLException {
+      return executeUpdate("DELETE FROM Users WHERE login = '" + login + "'") == 1;
+   }
+
+   // ---- Items ----
+
+   @Override
+   public List<List<String>> listItems(String typeOfItem, BigDecimal maxPrice, int sort) throws SQLException {
+      String conditions = "";
+      if (typeOfItem != null)
+         conditions = " WHERE typeOfItem LIKE '%" + typeOfItem + "%'";
+      if (maxPrice != null)
+         conditions += (conditions.isEmpty() ? " WHERE " : " AND ") + "price < " + maxPrice.toPlainString();
+      String sorting = "";
+      if (sort == PRICE_ASC)
+         sorting = " ORDER BY price ASC";
+      else if (sort == PRICE_DESC)
+         sorting = " ORDER BY price DESC";
+      return executeQueryAndReturnResult("SELECT " + ITEM_SELECT + " FROM Items" + conditions + sorting);
+   }
+
+   @Override
+   public BigDecimal getItemPrice(String itemName) throws SQLException {
+      List<String> record = first(executeQueryAndReturnResult("SELECT price FROM Items WHERE itemName = '" + itemName + "'"));
+      return record == null ? null : new BigDecimal(record.get(0).trim());
+   }
+
+   @Override
+   public boolean itemExists(String itemName) throws SQLException {
+      return executeQuery("SELECT itemName FROM Items WHERE itemName = '" + itemName + "'") != 0;
+   }
+
+   @Override
+   public void createItem(String itemName, String ingredients, String typeOfItem, BigDecimal price, String description) throws SQLException {
+      executeUpdate("INSERT INTO Items VALUES('" + itemName + "', '" + ingredients + "', '" + typeOfItem + "', " + price.toPlainString() + ", '" + description + "')");
+   }
+
+   @Override
+   public boolean updateItem(String itemName, String ingredients, String typeOfItem, BigDecimal price, String description) throws SQLException {
+      return executeUpdate("UPDATE Items SET ingredients = '" + ingredients + "', typeOfItem = '" + typeOfItem + "', price = " + price.toPlainString() +
+         ", description = '" + description + "' WHERE itemName = '" + itemName + "'") == 1;
+   }
+
+   @Override
+   public boolean deleteItem(String itemName) throws SQLException {
+      return executeUpdate("DELETE FROM Items WHERE itemName = '" + itemName + "'") == 1;
+   }
+
+   // ---- Stores ----
+
+   @Override
+   public List<List<String>> listStores() throws SQLException {
+      return executeQueryAndReturnResult("SELECT " + STORE_SELECT + " FROM Store");
+   }
+
+   @Override
+   public void createStore(int storeID, String address, String city, String state, String isOpen, Double reviewScore) throws SQLException {
+      executeUpdate("INSERT INTO Store VALUES(" + storeID + ", '" + address + "', '" + city + "', '" + state + "', '" + isOpen + "', " +
+         (reviewScore == null ? "NULL" : reviewScore.toString()) + ")");
+   }
+
+   @Override
+   public boolean deleteStore(int storeID) throws SQLException {
+      return executeUpdate("DELETE FROM Store WHERE storeID = " + storeID) == 1;
+   }
+
+   // ---- Orders and order lines ----
+
+   @Override
+   public int placeOrder(String login, int storeID, BigDecimal totalPrice, List<String> items, List<Integer> quantities, List<BigDecimal> itemPrices) throws SQLException {
+      // rolled back unless the commit is reached, whatever was thrown
+      boolean committed = false;
+      this._connection.setAutoCommit(false);
+      try{
+         if (itemPrices != null && !items.isEmpty()){
+            // FOR SHARE keeps the prices from changing until the order commits
+            String names = "";
+            for (int i = 0; i < items.size(); i++)
+               names += (i == 0 ? "'" : ", '") + items.get(i) + "'";
+            List<List<String>> prices = executeQueryAndReturnResult("SELECT itemName, price FROM Items WHERE itemName IN (" + names + ") FOR SHARE");
+            for (int i = 0; i < items.size(); i++){
+               BigDecimal current = null;
+               for (List<String> record : prices){
+                  if (record.get(0).equals(items.get(i)))
+                     current = new BigDecimal(record.get(1).trim());
+               }
+               if (current == null || current.compareTo(itemPrices.get(i)) != 0)
+                  throw new PriceChangedException(items.get(i));
+            }//end for
+         }//end if
+         //orderID is the max existing orderID + 1
+         List<String> record = first(executeQueryAndReturnResult("SELECT COALESCE(MAX(orderID), 0) + 1 FROM FoodOrder"));
+         int orderID = Integer.parseInt(record.get(0));
+         executeUpdate("INSERT INTO FoodOrder(orderID, login, storeID, totalPrice, orderTimestamp, orderStatus) VALUES(" + orderID + ", '" + login + "', " +
+            storeID + ", " + totalPrice.toPlainString() + ", 'now', '" + OrderStatus.INCOMPLETE.label() + "')");
+         for (int i = 0; i < items.size(); i++)
+            executeUpdate("INSERT INTO ItemsInOrder VALUES(" + orderID + ", '" + items.get(i) + "', " + quantities.get(i) + ")");
+         this._connection.commit();
+         committed = true;
+         return orderID;
+      }finally{
+         if (!committed)
+            this._connection.rollback();
+         this._connection.setAutoCommit(true);
+      }//end try
+   }//end placeOrder
+
+   @Override
+   public List<List<String>> listOrders(String login, int limit) throws SQLException {
+      String query = "SELECT " + ORDER_SELECT + " FROM FoodOrder";
+      if (login != null)
+         query += " WHERE login = '" + login + "'";
+      query += " ORDER BY orderTimestamp DESC, orderID DESC";
+      if (limit > 0)
+         query += " LIMIT " + limit;
+      return executeQueryAndReturnResult(query);
+   }
+
+   @Override
+   public List<String> getOrder(int orderID) throws SQLException {
+      return first(executeQueryAndReturnResult("SELECT " + ORDER_SELECT + " FROM FoodOrder WHERE orderID = " + orderID));
+   }
+
+   @Override
+   public List<List<String>> listOrderLines(int orderID) throws SQLException {
+      return executeQueryAndReturnResult("SELECT " + ORDER_LINE_SELECT + " FROM ItemsInOrder WHERE orderID = " + orderID + " ORDER BY itemName");
+   }
+
+   @Override
+   public boolean updateOrderStatus(int orderID, OrderStatus status) throws SQLException {
+      if (status == OrderStatus.ASSIGNED) {
+         throw new RuntimeException("Orders are assigned by claiming them as a driver");
+      }
+      // an order put back in the queue no longer belongs to its driver
+      String driver = status == OrderStatus.INCOMPLETE ? ", driverLogin = NULL" : "";
+      return executeUpdate("UPDATE FoodOrder SET orderStatus = '" + status.label() + "'" + driver + " WHERE orderID = " + orderID) == 1;
+   }
+
+   /**
+    * Method to claim the oldest incomplete order of a store for a driver.
+    * Rows already locked by another driver's claim are skipped instead of
+    * waited on, so concurrent drivers never block or get the same order.
+    *
+    * @param driver the login of the driver claiming the order
+    * @param storeID the store the driver delivers for
+    * @return the claimed orderID, or -1 if no order is waiting
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   @Override
+   public int claimNextOrder(String driver, int storeID) throws SQLException {
+      Statement stmt = null;
+      boolean committed = false;
+      try{
+         this._connection.setAutoCommit(false);
+         stmt = this._connection.createStatement ();
+         ResultSet rs = stmt.executeQuery ("SELECT orderID FROM FoodOrder WHERE storeID = " + storeID +
+            " AND orderStatus = '" + OrderStatus.INCOMPLETE.label() + "' ORDER BY orderTimestamp, orderID LIMIT 1 FOR UPDATE SKIP LOCKED");
+         int orderID = -1;
+         if (rs.next()){
+            orderID = rs.getInt(1);
+            stmt.executeUpdate ("UPDATE FoodOrder SET orderStatus = '" + OrderStatus.ASSIGNED.label() +
+               "', driverLogin = '" + driver + "' WHERE orderID = " + orderID);
+         }//end if
+         this._connection.commit();
+         committed = true;
+         return orderID;
+      }finally{
+         if (!committed)
+            this._connection.rollback();
+         if (stmt != null)
+            stmt.close ();
+         this._connection.setAutoCommit(true);
+      }//end try
+   }//end claimNextOrder
+
+   /**
+    * Method to mark an order assigned to a driver as complete.
+    *
+    * @param driver the login of the driver that claimed the order
+    * @param orderID the order to complete
+    * @return true if the order was assigned to the driver and is now complete
+    * @throws java.sql.SQLException when failed to execute the update
+    */
+   @Override
+   public boolean completeOrder(String driver, int orderID) throws SQLException {
+      Statement stmt = this._connection.createStatement ();
+      int rowCount = stmt.executeUpdate ("UPDATE FoodOrder SET orderStatus = '" + OrderStatus.COMPLETE.label() +
+         "' WHERE orderID = " + orderID + " AND driverLogin = '" + driver + "' AND orderStatus = '" + OrderStatus.ASSIGNED.label() + "'");
+      stmt.close ();
+      return rowCount == 1;
+   }//end completeOrder
+
+   @Override
+   public boolean deleteOrder(int orderID) throws SQLException {
+      return executeUpdate("DELETE FROM FoodOrder WHERE orderID = " + orderID) == 1;
+   }
+
+   // returns the first record of a result, or null if it is empty
+   private static List<String> first(List<List<String>> result) {
+      return result.isEmpty() ? null : result.get(0);
+   }
+
+   // select lists matching the *_COLUMNS constants
+   private static String select(String[] columns) {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < columns.length; i++) {
+         if (i > 0)
+            sb.append(", ");
+         sb.append(columns[i]);
+      }
+      return sb.toString();
+   }
+
+   /**
+    * Method to close the physical connection if it is open.
+    */
+   @Override
+   public void close(){
+      try{
+         if (this._connection != null){
+            this._connection.close ();
+         }//end if
+      }catch (SQLException e){
+         // ignored.
+      }//end try
+   }//end close
+}//end JdbcPizzaStoreRepository
@@ -0,0 +1,50 @@
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory directory of logins this process has seen in the Users table:
+ * logins that logged in, were created or were renamed here. It starts empty,
+ * so connecting costs no query.
+ *
+ * Another session may create, rename or delete a user at any time, so the
+ * directory is only a hint. A hit is confirmed with a primary key lookup
+ * before a login is reported as taken, and a miss is settled by the Users
+ * primary key when the insert or update runs.
+ *
+ */
+public class LoginDirectory {
+
+   private final Set<String> logins = ConcurrentHashMap.newKeySet();
+
+   /*
+    * Checks whether a login was last seen in the Users table
+    * @boolean
+    **/
+   public boolean contains(String login) {
+      return this.logins.contains(login);
+   }
+
+   /*
+    * Records a login found in or added to the Users table
+    **/
+   public void add(String login) {
+      this.logins.add(login);
+   }
+
+   /*
+    * Forgets a login that is no longer in the Users table
+    **/
+   public void remove(String login) {
+      this.logins.remove(login);
+   }
+
+   /*
+    * Replaces a login after it was changed in the Users table. The new login
+    * is added before the old one is removed, so a concurrent contains never
+    * misses both.
+    **/
+   public void rename(String oldLogin, String newLogin) {
+      this.logins.add(newLogin);
+      this.logins.remove(oldLogin);
+   }
+}//end LoginDirectory
@@ -0,0 +1,47 @@
+/**
+ * Java side of the order_status enum type declared in create_tables.sql.
+ * The constant order matches the order of the labels in the database.
+ *
+ */
+public enum OrderStatus {
+   INCOMPLETE("incomplete"),
+   ASSIGNED("assigned"),
+   COMPLETE("complete");
+
+   // label stored in the database
+   private final String label;
+
+   OrderStatus(String label) {
+      this.label = label;
+   }
+
+   /*
+    * Returns the label used by the order_status type
+    * @String
+    **/
+   public String label() {
+      return this.label;
+   }
+
+   /*
+    * Maps a value read from the database (or typed by a user) to an OrderStatus.
+    * Surrounding blanks and case are ignored.
+    * @OrderStatus
+    **/
+   public static OrderStatus fromDb(String value) {
+      if (value != null) {
+         String trimmed = value.trim();
+         for (OrderStatus s : values()) {
+            if (s.label.equalsIgnoreCase(trimmed)) {
+               return s;
+            }
+         }
+      }
+      throw new RuntimeException("Unknown order status: " + value);
+   }
+
+   @Override
+   public String toString() {
+      return this.label;
+   }
+}//end OrderStatus
@@ -11,12 +11,8 @@
  */
 
 
-import java.sql.DriverManager;
-import java.sql.Connection;
-import java.sql.Statement;
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.math.BigDecimal;
 import java.io.File;
 import java.sql.Timestamp;
 import java.util.Date;
@@ -28,14 +24,24 @@ import java.util.ArrayList;
 import java.lang.Math;
 
 /**
- * This class defines a simple embedded SQL utility class that is designed to
- * work with PostgreSQL JDBC drivers.
+ * This class defines the user interface of the pizza store. All data access
+ * goes through a PizzaStoreRepository, backed by PostgreSQL through JDBC or,
+ * with -memory, by InMemoryPizzaStoreRepository.
  *
  */
 public class PizzaStore {
 
-   // reference to physical database connection.
-   private Connection _connection = null;
+   // data access for the tables of the pizza store
+   private PizzaStoreRepository _repository = null;
+
+   // SQLState of a primary key or unique violation
+   static final String UNIQUE_VIOLATION = "23505";
+
+   // logins this process has seen in the Users table
+   private final LoginDirectory _logins = new LoginDirectory();
+
+   // prices of the Items table, loaded when the connection is made
+   private PriceList _prices = null;
 
    // handling the keyboard inputs through a BufferedReader
    // This variable can be global for convenience.
@@ -55,12 +61,8 @@ public class PizzaStore {
 
       System.out.print("Connecting to database...");
       try{
-         // constructs the connection URL
-         String url = "jdbc:postgresql://localhost:" + dbport + "/" + dbname;
-         System.out.println ("Connection URL: " + url + "\n");
-
-         // obtain a physical connection
-         this._connection = DriverManager.getConnection(url, user, passwd);
+         this._repository = new JdbcPizzaStoreRepository(dbname, dbport, user, passwd);
+         this._prices = PriceList.load(this._repository);
          System.out.println("Done");
       }catch (Exception e){
          System.err.println("Error - Unable to Connect to Database: " + e.getMessage() );
@@ -70,157 +72,159 @@ public class PizzaStore {
    }//end PizzaStore
 
    /**
-    * Method to execute an update SQL statement.  Update SQL instructions
-    * includes CREATE, INSERT, UPDATE, DELETE, and DROP.
+    * Creates a new instance of PizzaStore on top of an existing repository
     *
-    * @param sql the input SQL string
-    * @throws java.sql.SQLException when update failed
+    * @param repository the data access used by the user interface
+    * @throws java.sql.SQLException when failed to load the prices
     */
-   public void executeUpdate (String sql) throws SQLException {
-      // creates a statement object
-      Statement stmt = this._connection.createStatement ();
-
-      // issues the update instruction
-      stmt.executeUpdate (sql);
+   public PizzaStore(PizzaStoreRepository repository) throws SQLException {
+      this._repository = repository;
+      this._prices = PriceList.load(this._repository);
+   }//end PizzaStore
 
-      // close the instruction
-      stmt.close ();
-   }//end executeUpdate
+   /**
+    * Method to get the data access of this PizzaStore
+    *
+    * @return the repository holding the tables
+    */
+   public PizzaStoreRepository repository() {
+      return this._repository;
+   }
 
    /**
-    * Method to execute an input query SQL instruction (i.e. SELECT).  This
-    * method issues the query to the DBMS and outputs the results to
-    * standard out.
+    * Method to get the cached prices of the Items table
     *
-    * @param query the input query string
-    * @return the number of rows returned
-    * @throws java.sql.SQLException when failed to execute the query
+    * @return the price list used to price orders
     */
-   public int executeQueryAndPrintResult (String query) throws SQLException {
-      // creates a statement object
-      Statement stmt = this._connection.createStatement ();
-
-      // issues the query instruction
-      ResultSet rs = stmt.executeQuery (query);
-
-      /*
-       ** obtains the metadata object for the returned result set.  The metadata
-       ** contains row and column info.
-       */
-      ResultSetMetaData rsmd = rs.getMetaData ();
-      int numCol = rsmd.getColumnCount ();
-      int rowCount = 0;
-
-      // iterates through the result set and output them to standard out.
-      boolean outputHeader = true;
-      while (rs.next()){
-		 if(outputHeader){
-			for(int i = 1; i <= numCol; i++){
-			System.out.print(rsmd.getColumnName(i) + "\t");
-			}
-			System.out.println();
-			outputHeader = false;
-		 }
-         for (int i=1; i<=numCol; ++i)
-            System.out.print (rs.getString (i) + "\t");
-         System.out.println ();
-         ++rowCount;
-      }//end while
-      stmt.close();
-      return rowCount;
-   }//end executeQuery
+   public PriceList prices() {
+      return this._prices;
+   }
 
    /**
-    * Method to execute an input query SQL instruction (i.e. SELECT).  This
-    * method issues the query to the DBMS and returns the results as
-    * a list of records. Each record in turn is a list of attribute values
+    * Method to place the order of a cart. The cart was priced from the
+    * cached prices of this process; placeOrder re-checks them against Items
+    * in the order transaction. If another session changed a price, nothing
+    * is inserted, the cached prices are reloaded and the user is asked to
+    * order again.
     *
-    * @param query the input query string
-    * @return the query result as a list of records
-    * @throws java.sql.SQLException when failed to execute the query
+    * @param login the login of the user placing the order
+    * @param cart the items of the order
+    * @return the orderID of the new order
+    * @throws java.sql.SQLException when failed to place the order
     */
-   public List<List<String>> executeQueryAndReturnResult (String query) throws SQLException {
-      // creates a statement object
-      Statement stmt = this._connection.createStatement ();
-
-      // issues the query instruction
-      ResultSet rs = stmt.executeQuery (query);
-
-      /*
-       ** obtains the metadata object for the returned result set.  The metadata
-       ** contains row and column info.
-       */
-      ResultSetMetaData rsmd = rs.getMetaData ();
-      int numCol = rsmd.getColumnCount ();
-      int rowCount = 0;
-
-      // iterates through the result set and saves the data returned by the query.
-      boolean outputHeader = false;
-      List<List<String>> result  = new ArrayList<List<String>>();
-      while (rs.next()){
-        List<String> record = new ArrayList<String>();
-		for (int i=1; i<=numCol; ++i)
-			record.add(rs.getString (i));
-        result.add(record);
-      }//end while
-      stmt.close ();
-      return result;
-   }//end executeQueryAndReturnResult
+   public int submitOrder(String login, Cart cart) throws SQLException {
+      try{
+         return this._repository.placeOrder(login, cart.storeID(), PriceList.toDecimal(cart.total()),
+            cart.itemNames(), cart.quantities(), cart.prices());
+      }catch (PriceChangedException e){
+         this._prices.refresh(this._repository);
+         throw new RuntimeException(e.getMessage() + ", please place the order again");
+      }//end try
+   }//end submitOrder
 
    /**
-    * Method to execute an input query SQL instruction (i.e. SELECT).  This
-    * method issues the query to the DBMS and returns the number of results
+    * Method to check early whether a login is taken. A login the directory
+    * has not seen is not looked up; the insert or update that follows is
+    * rejected by the Users primary key if it is taken after all. A login the
+    * directory has seen is confirmed with a primary key lookup, since another
+    * session may have deleted or renamed it.
     *
-    * @param query the input query string
-    * @return the number of rows returned
+    * @param login the login to look up
+    * @return true if a user with this login exists
     * @throws java.sql.SQLException when failed to execute the query
     */
-   public int executeQuery (String query) throws SQLException {
-       // creates a statement object
-       Statement stmt = this._connection.createStatement ();
-
-       // issues the query instruction
-       ResultSet rs = stmt.executeQuery (query);
+   public boolean loginTaken(String login) throws SQLException {
+      if (!this._logins.contains(login))
+         return false;
+      if (this._repository.getUser(login) != null)
+         return true;
+      this._logins.remove(login);
+      return false;
+   }
 
-       int rowCount = 0;
+   /**
+    * Method to tell whether an insert or update failed because the login is
+    * already in the Users table. The login is then recorded in the directory.
+    *
+    * @param e the exception thrown by the repository
+    * @param login the login that was written
+    * @return true if the Users primary key rejected the login
+    */
+   public boolean loginInUse(SQLException e, String login) {
+      if (!UNIQUE_VIOLATION.equals(e.getSQLState()))
+         return false;
+      this._logins.add(login);
+      return true;
+   }
 
-       // iterates through the result set and count nuber of results.
-       while (rs.next()){
-          rowCount++;
-       }//end while
-       stmt.close ();
-       return rowCount;
+   /**
+    * Method to record a login inserted into or renamed in the Users table so
+    * the login directory stays current.
+    *
+    * @param oldLogin the previous login, or null for a new user
+    * @param newLogin the login now stored in the Users table
+    */
+   public void loginChanged(String oldLogin, String newLogin) {
+      if (oldLogin == null)
+         this._logins.add(newLogin);
+      else
+         this._logins.rename(oldLogin, newLogin);
    }
 
    /**
-    * Method to fetch the last value from sequence. This
-    * method issues the query to the DBMS and returns the current
-    * value of sequence used for autogenerated keys
+    * Method to check a login and password with a single query. The login is
+    * recorded in the directory when the check succeeds.
     *
-    * @param sequence name of the DB sequence
-    * @return current value of a sequence
+    * @param login the login of the user
+    * @param password the password of the user
+    * @return true if the login exists and the password matches
     * @throws java.sql.SQLException when failed to execute the query
     */
-   public int getCurrSeqVal(String sequence) throws SQLException {
-	Statement stmt = this._connection.createStatement ();
-
-	ResultSet rs = stmt.executeQuery (String.format("Select currval('%s')", sequence));
-	if (rs.next())
-		return rs.getInt(1);
-	return -1;
+   public boolean checkCredentials(String login, String password) throws SQLException {
+      if (!this._repository.checkCredentials(login, password))
+         return false;
+      this._logins.add(login);
+      return true;
    }
 
+   /**
+    * Method to print records returned by the repository to standard out, in
+    * the same layout as executeQueryAndPrintResult.
+    *
+    * @param columns the column names of the records
+    * @param records the records to print
+    * @param show the indexes of the columns to print, all columns if none
+    * @return the number of records printed
+    */
+   public static int printRecords(String[] columns, List<List<String>> records, int... show) {
+      if (show.length == 0) {
+         show = new int[columns.length];
+         for (int i = 0; i < show.length; ++i)
+            show[i] = i;
+      }
+      boolean outputHeader = true;
+      for (List<String> record : records){
+         if(outputHeader){
+            for(int i : show)
+               System.out.print(columns[i] + "\t");
+            System.out.println();
+            outputHeader = false;
+         }
+         for (int i : show)
+            System.out.print (record.get(i) + "\t");
+         System.out.println ();
+      }//end for
+      return records.size();
+   }//end printRecords
+
+
    /**
     * Method to close the physical connection if it is open.
     */
    public void cleanup(){
-      try{
-         if (this._connection != null){
-            this._connection.close ();
-         }//end if
-      }catch (SQLException e){
-         // ignored.
-      }//end try
+      if (this._repository != null){
+         this._repository.close ();
+      }//end if
    }//end cleanup
 
    /**
@@ -229,26 +233,36 @@ public class PizzaStore {
     * @param args the command line arguments this inclues the <mysql|pgsql> <login file>
     */
    public static void main (String[] args) {
-      if (args.length != 3) {
+      boolean inMemory = args.length == 2 && args[0].equals("-memory");
+      if (args.length != 3 && !inMemory) {
          System.err.println (
             "Usage: " +
             "java [-classpath <classpath>] " +
             PizzaStore.class.getName () +
-            " <dbname> <port> <user>");
+            " <dbname> <port> <user>\n" +
+            "   or: java [-classpath <classpath>] " +
+            PizzaStore.class.getName () +
+            " -memory <data directory>");
          return;
       }//end if
 
       Greeting();
       PizzaStore esql = null;
       try{
-         // use postgres JDBC driver.
-         Class.forName ("org.postgresql.Driver").newInstance ();
-         // instantiate the PizzaStore object and creates a physical
-         // connection.
-         String dbname = args[0];
-         String dbport = args[1];
-         String user = args[2];
-         esql = new PizzaStore (dbname, dbport, user, "");
+         if (inMemory) {
+            // load the csv files into an in-memory repository, no DBMS needed
+            esql = new PizzaStore (InMemoryPizzaStoreRepository.load(args[1]));
+         }
+         else {
+            // use postgres JDBC driver.
+            Class.forName ("org.postgresql.Driver").newInstance ();
+            // instantiate the PizzaStore object and creates a physical
+            // connection.
+            String dbname = args[0];
+            String dbport = args[1];
+            String user = args[2];
+            esql = new PizzaStore (dbname, dbport, user, "");
+         }//end if
 
          boolean keepon = true;
          while(keepon) {
@@ -286,6 +300,10 @@ public class PizzaStore {
                 System.out.println("10. Update Menu");
                 System.out.println("11. Update User");
 
+                //**the following functionalities should only be able to be used by drivers**
+                System.out.println("12. Claim Next Delivery");
+                System.out.println("13. Complete Delivery");
+
                 System.out.println(".........................");
                 System.out.println("20. Log out");
                 switch (readChoice()){
@@ -300,6 +318,8 @@ public class PizzaStore {
                    case 9: updateOrderStatus(esql, authorisedUser); break;
                    case 10: updateMenu(esql, authorisedUser); break;
                    case 11: updateUser(esql, authorisedUser); break;
+                   case 12: claimDelivery(esql, authorisedUser); break;
+                   case 13: completeDelivery(esql, authorisedUser); break;
 
 
 
@@ -357,15 +377,12 @@ public class PizzaStore {
     **/
    public static void CreateUser(PizzaStore esql){
       
-      String fixedLogin = "";
       try{
          System.out.println("\nEnter your login (up to 50 characters): ");
          String newLogin = in.readLine();
          String newLoginFixed = newLogin.substring(0, Math.min(newLogin.length(), 50));
          System.out.println("\nYour login is: " + newLoginFixed);
-         fixedLogin = "SELECT login FROM Users WHERE login = '"+ newLoginFixed+ "'";
-         int x = esql.executeQuery(fixedLogin);
-         if(x != 0){
+         if(esql.loginTaken(newLoginFixed)){
             throw new RuntimeException("This login is already in use. \n");
          }
          System.out.println("\nEnter your password (up to 30 characters): ");
@@ -375,8 +392,15 @@ public class PizzaStore {
          String phonenum = in.readLine();
          phonenum = phonenum.substring(0, Math.min(phonenum.length(), 20));
 
-      String query = "INSERT INTO Users(login, password, role, phoneNum) VALUES('" + newLoginFixed + "','" + password +"',  'customer','" + phonenum +"')";
-      esql.executeUpdate(query);
+      try{
+         esql.repository().createUser(newLoginFixed, password, Role.CUSTOMER, phonenum);
+      }catch (SQLException e){
+         if(esql.loginInUse(e, newLoginFixed)){
+            throw new RuntimeException("This login is already in use. \n");
+         }
+         throw e;
+      }
+      esql.loginChanged(null, newLoginFixed);
       }
       catch(Exception e){
          System.err.println(e.getMessage());
@@ -389,29 +413,16 @@ public class PizzaStore {
     * @return User login or null is the user does not exist
     **/
    public static String LogIn(PizzaStore esql){
-      boolean getlogin = false;
       String  FixedNewLogin= "";
       try{
-      while(!getlogin){ //get login, check if login exists
          System.out.println("\nEnter your login (up to 50 characters): ");
          String newLogin = in.readLine();
          FixedNewLogin = newLogin.substring(0, Math.min(newLogin.length(), 50));
          System.out.println("\nYour login is: " + newLogin);
-         String loginquery = "SELECT login FROM Users WHERE login = '"+ FixedNewLogin+ "'";
-         int x = esql.executeQuery(loginquery);
-         if(x != 0){
-            getlogin = true;
-         }
-         else{
-            System.out.println("This login does not exist \n");
-            return null;
-         }
-      }
          System.out.println("\nEnter your password: ");
          String pwd = in.readLine();
          pwd = pwd.substring(0, Math.min(pwd.length(), 30));
-         pwd = "SELECT login FROM Users WHERE login = '"+ FixedNewLogin+ "'AND password = '" + pwd + "'";
-         if(esql.executeQuery(pwd) != 1){
+         if(!esql.checkCredentials(FixedNewLogin, pwd)){
             System.out.println("This login and password is invalid\n");
             return null;
          }
@@ -427,14 +438,14 @@ public class PizzaStore {
 
    public static void viewProfile(PizzaStore esql, String user) {
       try{
-         String query = "SELECT* FROM Users WHERE login = '" + user + "' AND role = 'customer'";
-         if((esql.executeQuery(query) == 1)){
-            query = "SELECT favoriteItems, phoneNum FROM Users WHERE login = '"+ user + "'";
-            esql.executeQueryAndPrintResult(query);
+         if(esql.repository().getRole(user) == Role.CUSTOMER){
+            List<String> profile = esql.repository().getUser(user);
+            List<List<String>> records = new ArrayList<List<String>>();
+            records.add(profile);
+            printRecords(PizzaStoreRepository.USER_COLUMNS, records, 3, 4); //favoriteItems, phoneNum
          }
          else{
-            query = "SELECT* FROM Users";
-            esql.executeQueryAndPrintResult(query);
+            printRecords(PizzaStoreRepository.USER_COLUMNS, esql.repository().listUsers());
          }
       }
       catch(Exception e){
@@ -443,7 +454,6 @@ public class PizzaStore {
    }
    public static void updateProfile(PizzaStore esql, String user) {
       try{
-            String query = null;
             String newParam = null;
             System.out.println("Select choice to update: ");
             System.out.println("1. Favorite Item");
@@ -451,13 +461,11 @@ public class PizzaStore {
             switch (Integer.parseInt(in.readLine())){
                    case 1: System.out.println("Give the name of the new Favorite Item: ");
                            newParam = in.readLine();
-                           query = "UPDATE Users SET favoriteItems = '"+ newParam + "' WHERE login = '" + user + "'";
-                           esql.executeUpdate(query);
+                           esql.repository().updateFavoriteItems(user, newParam);
                            break;
                    case 2: System.out.println("Give the new Phone Number: ");
                            newParam = in.readLine();
-                           query = "UPDATE Users SET phoneNum = '"+ newParam + "' WHERE login = '" + user + "'";
-                           esql.executeUpdate(query);
+                           esql.repository().updatePhoneNum(user, newParam);
                            break;
             }
       }
@@ -469,25 +477,26 @@ public class PizzaStore {
    public static void viewMenu(PizzaStore esql) {
       try{
          
-            String conditions = "";
-            String sorting = "";
+            String type = null;
+            BigDecimal priceCap = null;
+            int sorting = PizzaStoreRepository.UNSORTED;
             System.out.println("Filter by item type?"); //choose whether or not to filter by item
             System.out.println("1. Yes");
             System.out.println("2. No");
             switch(readChoice()){
-               case 1: System.out.println("Which type?"); //adds to sql conditions
+               case 1: System.out.println("Which type?"); //adds to conditions
                        System.out.println("1. Entree"); 
                        System.out.println("2. Drink");
                        System.out.println("3. Side");
                        switch(readChoice()){
-                           case 1: conditions = "WHERE typeOfItem LIKE '%entree%'"; break;
-                           case 2: conditions = "WHERE typeOfItem LIKE '%drinks%'"; break;
-                           case 3: conditions = "WHERE typeOfItem LIKE '%sides%'"; break;
+                           case 1: type = "entree"; break;
+                           case 2: type = "drinks"; break;
+                           case 3: type = "sides"; break;
 
                            default : System.out.println("Unrecognized choice!"); break;
                         }
                         break;
-               case 2: 
+               case 2: break;
 
                default : System.out.println("Unrecognized choice!"); break;
             }
@@ -496,15 +505,9 @@ public class PizzaStore {
             System.out.println("2. No");
             switch(readChoice()){
                case 1: System.out.println("What price?");
-                       float priceCap = Float.parseFloat(in.readLine());
-                       if(conditions == null){
-                           conditions = "WHERE price < " + priceCap;
-                       }
-                       else{
-                           conditions = conditions + "AND price < " + priceCap;
-                       }
+                       priceCap = new BigDecimal(in.readLine().trim());
                        break;
-               case 2: //conditions same as before, null if no conditions
+               case 2: break; //no price condition
 
                default : System.out.println("Unrecognized choice!"); break;
             }
@@ -513,12 +516,11 @@ public class PizzaStore {
             System.out.println("2. Descending Price");
             System.out.println("3. No");
             switch(readChoice()){
-               case 1: sorting = "ORDER BY Price ASC"; break;
-               case 2: sorting = "ORDER BY Price DESC"; break;
-               case 3: sorting = ""; break;
+               case 1: sorting = PizzaStoreRepository.PRICE_ASC; break;
+               case 2: sorting = PizzaStoreRepository.PRICE_DESC; break;
+               case 3: sorting = PizzaStoreRepository.UNSORTED; break;
             }
-            String query = "SELECT* FROM Items " + conditions + sorting;
-            esql.executeQueryAndPrintResult(query); 
+            printRecords(PizzaStoreRepository.ITEM_COLUMNS, esql.repository().listItems(type, priceCap, sorting));
             
          
       }
@@ -530,21 +532,14 @@ public class PizzaStore {
       try{
          System.out.println("Enter the storeID of the store you wish to order from: ");
          int storeOrder = Integer.parseInt(in.readLine());
-         String query = "SELECT Max(orderID) FROM FoodOrder";
-         int orderID = Integer.parseInt(((esql.executeQueryAndReturnResult(query)).get(0).get(0))) + 1; //orderID is the max existing orderID + 1
          boolean finishedOrdering = false;
-         ArrayList<Integer> quantities = new ArrayList<Integer>();
-         ArrayList<String> items = new ArrayList<String>();
+         Cart cart = esql.prices().newCart(storeOrder); //priced from the cached Items, no query per item
          while(!finishedOrdering){ //loop to add items to order
             System.out.println("Give the item name you wish to add: ");
             String itemName = in.readLine();
-            items.add(itemName);
             System.out.println("Give the number of the item you wish to add");
             int itemQuantity = Integer.parseInt(in.readLine());
-            quantities.add(itemQuantity);
-            if(itemQuantity <= 0){
-               throw new RuntimeException("No negative item quantities");
-            }
+            cart.add(itemName, itemQuantity);
             System.out.println("Add more items?");
             System.out.println("1. Order more");
             System.out.println("2. Finish Ordering");
@@ -553,26 +548,18 @@ public class PizzaStore {
                finishedOrdering = true;
             }
          }
-         float totalCost = 0;
-         float itemPrice = 0;
-         for(int i = 0; i < items.size(); i++){ //goes through each item in the order to get its price
-            query = "SELECT price FROM Items WHERE itemName LIKE '" + items.get(i) + "%'";
-            itemPrice = Float.parseFloat(((esql.executeQueryAndReturnResult(query)).get(0)).get(0)); //gets price of item
-            totalCost = itemPrice*quantities.get(i);
+         for(int i = 0; i < cart.size(); i++){ //shows the price of each line of the order
+            System.out.println(cart.item(i) + " x" + cart.quantity(i) + "\t" + PriceList.format(cart.lineTotal(i)));
          }
-         System.out.println("Total Price: " + totalCost);
+         System.out.println("Total Price: " + PriceList.format(cart.total()));
          System.out.println("Confirm order?");
          System.out.println("1. Yes");
          System.out.println("2. No");
          if(Integer.parseInt(in.readLine()) == 2){
             return;
          }
-         query = "INSERT INTO FoodOrder VALUES(" + orderID + ", '" + user + "', " + storeOrder + ", " + totalCost + ", 'now' , 'incomplete')";
-         esql.executeUpdate(query);
-         for(int i = 0; i < items.size(); i++){
-            query = "INSERT INTO ItemsInOrder VALUES(" + orderID + ", '"+ items.get(i) +"', " + quantities.get(i) + ")"; //add new items to FoodOrder
-            esql.executeUpdate(query);
-         }
+         int orderID = esql.submitOrder(user, cart);
+         System.out.println("Placed order " + orderID);
       }
       catch(Exception e){
          System.err.println(e.getMessage());
@@ -580,15 +567,12 @@ public class PizzaStore {
    }
    public static void viewAllOrders(PizzaStore esql, String user) {
       try{
-         String query = "SELECT* FROM Users WHERE login = '" + user + "'";
-         String role = (esql.executeQueryAndReturnResult(query).get(0)).get(2);
-         if(role != "manager" && role != "driver"){
-            query = "SELECT OrderID FROM foodOrder WHERE login = '" + user + "' ORDER BY orderTimestamp DESC";
+         if(esql.repository().getRole(user) == Role.CUSTOMER){
+            printRecords(PizzaStoreRepository.ORDER_COLUMNS, esql.repository().listOrders(user, 0), 0); //orderID only
          }
          else{
-            query = "SELECT* FROM foodOrder ORDER BY orderTimestamp DESC";
+            printRecords(PizzaStoreRepository.ORDER_COLUMNS, esql.repository().listOrders(null, 0));
          }
-         esql.executeQueryAndPrintResult(query);
       }
       catch(Exception e){
          System.err.println(e.getMessage());
@@ -596,15 +580,12 @@ public class PizzaStore {
    }
    public static void viewRecentOrders(PizzaStore esql, String user) {
       try{
-         String query = "SELECT* FROM Users WHERE login = '" + user + "'";
-         String role = (esql.executeQueryAndReturnResult(query).get(0)).get(2);
-         if(role != "manager" && role != "driver"){
-            query = "SELECT OrderID FROM foodOrder WHERE login = '" + user + "' ORDER BY orderTimestamp DESC LIMIT 5";
+         if(esql.repository().getRole(user) == Role.CUSTOMER){
+            printRecords(PizzaStoreRepository.ORDER_COLUMNS, esql.repository().listOrders(user, 5), 0); //orderID only
          }
          else{
-            query = "SELECT* FROM foodOrder ORDER BY orderTimestamp DESC LIMIT 5";
+            printRecords(PizzaStoreRepository.ORDER_COLUMNS, esql.repository().listOrders(null, 5));
          }
-         esql.executeQueryAndPrintResult(query);
       }
       catch(Exception e){
          System.err.println(e.getMessage());
@@ -612,21 +593,18 @@ public class PizzaStore {
    }
    public static void viewOrderInfo(PizzaStore esql, String user) {
       try{
-         String query = "SELECT* FROM Users WHERE login = '" + user + "'";
-         String role = (esql.executeQueryAndReturnResult(query).get(0)).get(2);
+         Role role = esql.repository().getRole(user);
          System.out.println("Specify the orderID of the order you want to view: ");
          int orderID = Integer.parseInt(in.readLine());
-         if(role == "manager" || role == "driver"){
-            query = "SELECT* FROM FoodOrder WHERE orderID = " + orderID;
-            esql.executeQueryAndPrintResult(query);
-         }
-         else{
-            query = "SELECT* FROM FoodOrder WHERE orderID = " + orderID + "AND login = '" + user + "'";
-            if(esql.executeQuery(query) == 0){
-               throw new RuntimeException("This order does not exist");
-            }
-            esql.executeQueryAndPrintResult(query);
+         List<String> order = esql.repository().getOrder(orderID);
+         //customers can only see their own orders
+         if(order == null || (role == Role.CUSTOMER && !user.equals(order.get(1)))){
+            throw new RuntimeException("This order does not exist");
          }
+         List<List<String>> records = new ArrayList<List<String>>();
+         records.add(order);
+         printRecords(PizzaStoreRepository.ORDER_COLUMNS, records);
+         printRecords(PizzaStoreRepository.ORDER_LINE_COLUMNS, esql.repository().listOrderLines(orderID), 1, 2); //itemName, quantity
       }
       catch(Exception e){
          System.err.println(e.getMessage());
@@ -634,8 +612,7 @@ public class PizzaStore {
    }
    public static void viewStores(PizzaStore esql) {
       try{
-         String query = "Select* FROM Store";
-         esql.executeQueryAndPrintResult(query);
+         printRecords(PizzaStoreRepository.STORE_COLUMNS, esql.repository().listStores());
       }
       catch(Exception e){
          System.err.println(e.getMessage());
@@ -643,19 +620,15 @@ public class PizzaStore {
    }
    public static void updateOrderStatus(PizzaStore esql, String user) {
       try{
-         String query = "SELECT* FROM Users WHERE login = '" + user + "'";
-         String role = (esql.executeQueryAndReturnResult(query).get(0)).get(2);
-         if(role != "customer"){
+         if(esql.repository().getRole(user) != Role.CUSTOMER){
             System.out.println("Enter the OrderID: ");
-            String itemName = in.readLine();
+            int orderID = Integer.parseInt(in.readLine());
             System.out.println("Enter the new order status");
-            String status = in.readLine();
-            query = "SELECT* FROM Items WHERE itemName LIKE '"+ itemName + "'";
-            if(esql.executeQuery(query) != 0){ //if the item exists
-               query = "UPDATE Items Set orderStatus = '" + status + "' WHERE itemName LIKE '"+ itemName + "'";
-               esql.executeUpdate(query);
+            OrderStatus status = OrderStatus.fromDb(in.readLine());
+            if(status == OrderStatus.ASSIGNED){
+               throw new RuntimeException("Orders are assigned when a driver claims them");
             }
-            else{
+            if(!esql.repository().updateOrderStatus(orderID, status)){ //if the order does not exist
                throw new RuntimeException("No such order exists");
             }
             System.out.println("Finished update.");
@@ -665,11 +638,49 @@ public class PizzaStore {
          System.err.println(e.getMessage());
       }
    }
+   public static void claimDelivery(PizzaStore esql, String user) {
+      try{
+         if(esql.repository().getRole(user) == Role.DRIVER){
+            System.out.println("Enter the storeID of the store you deliver for: ");
+            int storeID = Integer.parseInt(in.readLine());
+            int orderID = esql.repository().claimNextOrder(user, storeID);
+            if(orderID == -1){
+               System.out.println("No orders are waiting for this store.");
+            }
+            else{
+               System.out.println("You are assigned order " + orderID);
+               printRecords(PizzaStoreRepository.ORDER_LINE_COLUMNS, esql.repository().listOrderLines(orderID), 1, 2); //itemName, quantity
+            }
+         }
+         else{
+            System.out.println("You are not a driver, you can't do this.");
+         }
+      }
+      catch(Exception e){
+         System.err.println(e.getMessage());
+      }
+   }
+   public static void completeDelivery(PizzaStore esql, String user) {
+      try{
+         if(esql.repository().getRole(user) == Role.DRIVER){
+            System.out.println("Enter the OrderID you delivered: ");
+            int orderID = Integer.parseInt(in.readLine());
+            if(!esql.repository().completeOrder(user, orderID)){
+               throw new RuntimeException("This order is not assigned to you");
+            }
+            System.out.println("Finished update.");
+         }
+         else{
+            System.out.println("You are not a driver, you can't do this.");
+         }
+      }
+      catch(Exception e){
+         System.err.println(e.getMessage());
+      }
+   }
    public static void updateMenu(PizzaStore esql, String user) {
       try{
-         String query = "SELECT* FROM Users WHERE login = '" + user + "'";
-         String managerStatus = (esql.executeQueryAndReturnResult(query).get(0)).get(2); //get role from first entry (should be the only entry)
-         if(managerStatus == "manager"){
+         if(esql.repository().getRole(user) == Role.MANAGER){
             System.out.println("Enter the name of the item you want to update/add: ");
             String itemName = in.readLine();
             System.out.println("Enter the list of its ingredients: ");
@@ -677,17 +688,18 @@ public class PizzaStore {
             System.out.println("Enter the item type: ");
             String type = in.readLine();
             System.out.println("Enter the price: ");
-            float price = Float.parseFloat(in.readLine());
+            BigDecimal price = new BigDecimal(in.readLine().trim());
+            long cents = PriceList.toCents(price); //rejects prices decimal(10,2) cannot hold
             System.out.println("Enter the description (optional): ");
             String description = in.readLine();
-            query = "SELECT* FROM Items WHERE itemName LIKE '"+ itemName + "'";
-            if(esql.executeQuery(query) != 0){ //if the item exists
-               query = "UPDATE Items Set \"ingredients\" = '\"" + ingredients + "\"', typeOfItem = '" + type + "', price = "+ price + ", \"description\" = '\"" + description + "\"' WHERE itemName LIKE '"+ itemName + "'"; 
+            //ingredients and description are stored quoted, like in items.csv
+            if(esql.repository().itemExists(itemName)){ //if the item exists
+               esql.repository().updateItem(itemName, "\"" + ingredients + "\"", type, price, "\"" + description + "\"");
             }
             else{
-               query = "INSERT INTO Items VALUES('" + itemName + "', '\"" + ingredients + "\"', '" + type + "', "+ price + ", '\"" + description + "\"')";
+               esql.repository().createItem(itemName, "\"" + ingredients + "\"", type, price, "\"" + description + "\"");
             }
-            esql.executeUpdate(query);
+            esql.prices().setPrice(itemName, cents); //keep cached prices current
             System.out.println("Finished update.");
             
          }
@@ -701,9 +713,7 @@ public class PizzaStore {
    }
    public static void updateUser(PizzaStore esql, String user) {
       try{
-         String query = "SELECT* FROM Users WHERE login = '" + user + "'";
-         String managerStatus = (esql.executeQueryAndReturnResult(query).get(0)).get(2); //get role from first entry (should be the only entry)
-         if(managerStatus == "manager"){ //check if user is a manager
+         if(esql.repository().getRole(user) == Role.MANAGER){ //check if user is a manager
             String targetUser = "";
             String newParam = null;
             System.out.println("Select choice to update: ");
@@ -716,38 +726,45 @@ public class PizzaStore {
                            targetUser = in.readLine();
                            System.out.println("Give the name of the new Favorite Item: ");
                            newParam = in.readLine();
-                           query = "UPDATE Users SET favoriteItems = '"+ newParam + "' WHERE login = '" + targetUser + "'";
-                           esql.executeUpdate(query);
+                           if(!esql.repository().updateFavoriteItems(targetUser, newParam)){
+                              throw new RuntimeException("No such user exists");
+                           }
                            break;
                    case 2: System.out.println("Give the login of the user you want to update: ");
                            targetUser = in.readLine();
                            System.out.println("Give the new Phone Number: ");
                            newParam = in.readLine();
-                           query = "UPDATE Users SET phoneNum = '"+ newParam + "' WHERE login = '" + targetUser + "'";
-                           esql.executeUpdate(query);
+                           if(!esql.repository().updatePhoneNum(targetUser, newParam)){
+                              throw new RuntimeException("No such user exists");
+                           }
                            break;
                    case 3: System.out.println("Give the login of the user you want to update: ");
                            targetUser = in.readLine();
                            System.out.println("Give the new login: ");
                            newParam = in.readLine();
-                           String loginquery = "SELECT login FROM Users WHERE login = '"+ newParam+ "'";
-                           int x = esql.executeQuery(loginquery);
-                           if(x != 0){
+                           if(esql.loginTaken(newParam)){
                               throw new RuntimeException("This login is already in use");
                            }
-                           query = "UPDATE Users SET login = '"+ newParam + "' WHERE login = '" + targetUser + "'";
-                           esql.executeUpdate(query);
+                           try{
+                              if(!esql.repository().updateLogin(targetUser, newParam)){
+                                 throw new RuntimeException("No such user exists");
+                              }
+                           }catch (SQLException e){
+                              if(esql.loginInUse(e, newParam)){
+                                 throw new RuntimeException("This login is already in use");
+                              }
+                              throw e;
+                           }
+                           esql.loginChanged(targetUser, newParam);
                            break;
                    case 4: System.out.println("Give the login of the user you want to update: ");
                            targetUser = in.readLine();
-                           String rolecheck = "SELECT* FROM Users WHERE login = '" + user + "'";
-                           if((esql.executeQueryAndReturnResult(query).get(0)).get(2) == "manager"){
+                           if(esql.repository().getRole(targetUser) == Role.MANAGER){
                               throw new RuntimeException("This user is a manager, you can't update another manager.");
                            }
                            System.out.println("Give the new role: ");
-                           newParam = in.readLine();
-                           query = "UPDATE Users SET role = '"+ newParam + "' WHERE login = '" + targetUser + "'";
-                           esql.executeUpdate(query);
+                           Role newRole = Role.fromDb(in.readLine());
+                           esql.repository().updateRole(targetUser, newRole);
                            break;
 
                    default : System.out.println("Unrecognized choice!"); 
@@ -0,0 +1,161 @@
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Data access for the tables of create_tables.sql. The user interface in
+ * PizzaStore only talks to the database through this interface.
+ *
+ * Rows are returned as lists of attribute values in the column order given
+ * by the *_COLUMNS constants, the same shape executeQueryAndReturnResult
+ * returns. Constraint violations are reported as SQLExceptions carrying the
+ * Postgres SQLState (23505 unique, 23503 foreign key).
+ *
+ */
+public interface PizzaStoreRepository {
+
+   String[] USER_COLUMNS = {"login", "password", "role", "favoriteitems", "phonenum"};
+   String[] ITEM_COLUMNS = {"itemname", "ingredients", "typeofitem", "price", "description"};
+   String[] STORE_COLUMNS = {"storeid", "address", "city", "state", "isopen", "reviewscore"};
+   String[] ORDER_COLUMNS = {"orderid", "login", "storeid", "totalprice", "ordertimestamp", "orderstatus", "driverlogin"};
+   String[] ORDER_LINE_COLUMNS = {"orderid", "itemname", "quantity"};
+
+   // sort orders for listItems
+   int UNSORTED = 0;
+   int PRICE_ASC = 1;
+   int PRICE_DESC = 2;
+
+   // ---- Users ----
+
+   /*
+    * Returns every user
+    **/
+   List<List<String>> listUsers() throws SQLException;
+
+   /*
+    * Returns the user with this login, or null if there is none
+    **/
+   List<String> getUser(String login) throws SQLException;
+
+   /*
+    * Returns the role of a user, throws if the user does not exist
+    **/
+   Role getRole(String login) throws SQLException;
+
+   /*
+    * Checks a login and password with a single lookup
+    **/
+   boolean checkCredentials(String login, String password) throws SQLException;
+
+   void createUser(String login, String password, Role role, String phoneNum) throws SQLException;
+
+   /*
+    * The update methods return false if no user has this login
+    **/
+   boolean updateFavoriteItems(String login, String favoriteItems) throws SQLException;
+
+   boolean updatePhoneNum(String login, String phoneNum) throws SQLException;
+
+   boolean updateRole(String login, Role role) throws SQLException;
+
+   /*
+    * Renames a user. Fails like the foreign keys of FoodOrder do (no ON
+    * UPDATE action) when the user has orders.
+    **/
+   boolean updateLogin(String oldLogin, String newLogin) throws SQLException;
+
+   /*
+    * Deletes a user, cascading to their orders. Orders assigned to the user
+    * as a driver go back to incomplete so another driver can claim them.
+    **/
+   boolean deleteUser(String login) throws SQLException;
+
+   // ---- Items ----
+
+   /*
+    * Returns the items whose type contains typeOfItem (any type if null)
+    * and that cost less than maxPrice (any price if null)
+    **/
+   List<List<String>> listItems(String typeOfItem, BigDecimal maxPrice, int sort) throws SQLException;
+
+   /*
+    * Returns the price of an item, or null if there is no such item
+    **/
+   BigDecimal getItemPrice(String itemName) throws SQLException;
+
+   boolean itemExists(String itemName) throws SQLException;
+
+   void createItem(String itemName, String ingredients, String typeOfItem, BigDecimal price, String description) throws SQLException;
+
+   boolean updateItem(String itemName, String ingredients, String typeOfItem, BigDecimal price, String description) throws SQLException;
+
+   /*
+    * Deletes an item, cascading to the order lines that contain it
+    **/
+   boolean deleteItem(String itemName) throws SQLException;
+
+   // ---- Stores ----
+
+   List<List<String>> listStores() throws SQLException;
+
+   void createStore(int storeID, String address, String city, String state, String isOpen, Double reviewScore) throws SQLException;
+
+   /*
+    * Deletes a store, cascading to its orders
+    **/
+   boolean deleteStore(int storeID) throws SQLException;
+
+   // ---- Orders and order lines ----
+
+   /*
+    * Creates an incomplete order and its order lines in one transaction.
+    * itemPrices holds the Items.price each line was priced from; if any of
+    * them differs from the price in Items when the transaction runs, nothing
+    * is inserted and PriceChangedException is thrown. A null itemPrices
+    * skips the check.
+    * @return the orderID of the new order
+    **/
+   int placeOrder(String login, int storeID, BigDecimal totalPrice, List<String> items, List<Integer> quantities, List<BigDecimal> itemPrices) throws SQLException;
+
+   /*
+    * Returns the orders of a user (every order if login is null), newest
+    * first. A limit of 0 or less returns all of them.
+    **/
+   List<List<String>> listOrders(String login, int limit) throws SQLException;
+
+   /*
+    * Returns an order, or null if there is no such order
+    **/
+   List<String> getOrder(int orderID) throws SQLException;
+
+   List<List<String>> listOrderLines(int orderID) throws SQLException;
+
+   /*
+    * Sets the status of an order by hand. ASSIGNED is rejected since only
+    * claimNextOrder assigns a driver; INCOMPLETE clears the driver so the
+    * order can be claimed again.
+    **/
+   boolean updateOrderStatus(int orderID, OrderStatus status) throws SQLException;
+
+   /*
+    * Claims the oldest incomplete order of a store for a driver without
+    * waiting on orders other drivers are claiming
+    * @return the claimed orderID, or -1 if no order is waiting
+    **/
+   int claimNextOrder(String driver, int storeID) throws SQLException;
+
+   /*
+    * Marks an order assigned to this driver as complete
+    **/
+   boolean completeOrder(String driver, int orderID) throws SQLException;
+
+   /*
+    * Deletes an order, cascading to its order lines
+    **/
+   boolean deleteOrder(int orderID) throws SQLException;
+
+   /*
+    * Releases the resources held by the repository
+    **/
+   void close();
+}//end PizzaStoreRepository
@@ -0,0 +1,16 @@
+import java.sql.SQLException;
+
+/**
+ * Thrown by PizzaStoreRepository.placeOrder when the price of an item in
+ * the Items table is no longer the price the order was computed from. The
+ * order is not placed.
+ *
+ */
+public class PriceChangedException extends SQLException {
+
+   private static final long serialVersionUID = 1L;
+
+   public PriceChangedException(String itemName) {
+      super("The price of " + itemName + " has changed");
+   }
+}//end PriceChangedException
@@ -0,0 +1,112 @@
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Item prices in cents, cached from the Items table so orders are priced
+ * without a query per item.
+ *
+ * The cache belongs to one process: it sees the changes of this process's
+ * updateMenu, but not those made by other sessions. Orders are therefore
+ * placed with the Items prices their cart used, which placeOrder checks
+ * inside the order transaction, and the cache is refreshed on a mismatch.
+ *
+ * Prices are exact: decimal(10,2) values are held as long cents and never
+ * go through float or double.
+ *
+ */
+public class PriceList {
+
+   // largest value a decimal(10,2) column can hold, in cents
+   public static final long MAX_CENTS = 9999999999L;
+
+   // price of every item, from the Items table
+   private final ConcurrentMap<String, Long> prices = new ConcurrentHashMap<String, Long>();
+
+   /**
+    * Creates a price list holding the price of every item of a repository
+    *
+    * @param repository the repository to read the Items table from
+    * @return the loaded price list
+    * @throws java.sql.SQLException when failed to read the items
+    */
+   public static PriceList load(PizzaStoreRepository repository) throws SQLException {
+      PriceList priceList = new PriceList();
+      priceList.refresh(repository);
+      return priceList;
+   }//end load
+
+   /**
+    * Reloads the item prices from a repository
+    *
+    * @param repository the repository to read the Items table from
+    * @throws java.sql.SQLException when failed to read the items
+    */
+   public void refresh(PizzaStoreRepository repository) throws SQLException {
+      Set<String> names = new HashSet<String>();
+      for (List<String> item : repository.listItems(null, null, PizzaStoreRepository.UNSORTED)) {
+         setPrice(item.get(0), toCents(item.get(3)));
+         names.add(item.get(0));
+      }
+      this.prices.keySet().retainAll(names);
+   }//end refresh
+
+   /*
+    * Sets the price of an item, after it was added to or changed in Items
+    **/
+   public void setPrice(String itemName, long cents) {
+      this.prices.put(itemName, checkCents(cents));
+   }
+
+   /*
+    * Returns the price of an item in cents, or -1 if there is no such item
+    **/
+   public long price(String itemName) {
+      Long cents = this.prices.get(itemName);
+      return cents == null ? -1 : cents.longValue();
+   }
+
+   /*
+    * Starts an empty cart for an order at a store
+    **/
+   public Cart newCart(int storeID) {
+      return new Cart(this, storeID);
+   }
+
+   /*
+    * Converts a decimal(10,2) value to cents
+    **/
+   public static long toCents(String value) {
+      return toCents(new BigDecimal(value.trim()));
+   }
+
+   public static long toCents(BigDecimal value) {
+      // throws if the value has more than two decimals
+      return checkCents(value.movePointRight(2).longValueExact());
+   }
+
+   /*
+    * Converts cents to the decimal(10,2) value stored in the database
+    **/
+   public static BigDecimal toDecimal(long cents) {
+      return BigDecimal.valueOf(checkCents(cents), 2);
+   }
+
+   /*
+    * Formats cents as dollars, e.g. 1099 as 10.99
+    **/
+   public static String format(long cents) {
+      return toDecimal(cents).toPlainString();
+   }
+
+   private static long checkCents(long cents) {
+      if (cents < 0 || cents > MAX_CENTS) {
+         throw new RuntimeException("Price out of range: " + cents + " cents");
+      }
+      return cents;
+   }
+}//end PriceList
@@ -0,0 +1,47 @@
+/**
+ * Java side of the user_role enum type declared in create_tables.sql.
+ * The constant order matches the order of the labels in the database.
+ *
+ */
+public enum Role {
+   CUSTOMER("customer"),
+   DRIVER("driver"),
+   MANAGER("manager");
+
+   // label stored in the database
+   private final String label;
+
+   Role(String label) {
+      this.label = label;
+   }
+
+   /*
+    * Returns the label used by the user_role type
+    * @String
+    **/
+   public String label() {
+      return this.label;
+   }
+
+   /*
+    * Maps a value read from the database (or typed by a user) to a Role.
+    * Surrounding blanks and case are ignored.
+    * @Role
+    **/
+   public static Role fromDb(String value) {
+      if (value != null) {
+         String trimmed = value.trim();
+         for (Role r : values()) {
+            if (r.label.equalsIgnoreCase(trimmed)) {
+               return r;
+            }
+         }
+      }
+      throw new RuntimeException("Unknown role: " + value);
+   }
+
+   @Override
+   public String toString() {
+      return this.label;
+   }
+}//end Role
@@ -5,6 +5,7 @@ DROP INDEX IF EXISTS index_price;
 DROP INDEX IF EXISTS index_orderTimestamp;
 DROP INDEX IF EXISTS index_itemName;
 DROP INDEX IF EXISTS index_role;
+DROP INDEX IF EXISTS index_incompleteOrders;
 
 CREATE INDEX index_OrderID
 ON FoodOrder
@@ -40,3 +41,10 @@ CREATE INDEX index_Timestamp
 ON FoodOrder
 USING BTREE
 (orderTimestamp);
+
+--dispatch queue: only orders still waiting for a driver, oldest first per store
+CREATE INDEX index_incompleteOrders
+ON FoodOrder
+USING BTREE
+(storeID, orderTimestamp, orderID)
+WHERE orderStatus = 'incomplete';
@@ -3,10 +3,16 @@ DROP TABLE IF EXISTS Items CASCADE;
 DROP TABLE IF EXISTS FoodOrder CASCADE;
 DROP TABLE IF EXISTS Store CASCADE;
 DROP TABLE IF EXISTS ItemsInOrder CASCADE;
+DROP TYPE IF EXISTS user_role;
+DROP TYPE IF EXISTS order_status;
+
+--enum types are stored as 4 bytes and compared by their label order
+CREATE TYPE user_role AS ENUM ('customer', 'driver', 'manager');
+CREATE TYPE order_status AS ENUM ('incomplete', 'assigned', 'complete');
 
 CREATE TABLE Users ( login varchar(50) NOT NULL,
                      password varchar(30) NOT NULL,
-                     role char(20) NOT NULL,
+                     role user_role NOT NULL,
                      favoriteItems text,
                      phoneNum varchar(20) NOT NULL,
                      PRIMARY KEY(login)
@@ -34,14 +40,32 @@ CREATE TABLE FoodOrder ( orderID integer NOT NULL,
                            storeID integer NOT NULL, --placedAt relationship
                            totalPrice decimal(10,2) NOT NULL,
                            orderTimestamp timestamp NOT NULL,
-                           orderStatus char(50),
+                           orderStatus order_status,
+                           driverLogin varchar(50), --delivers relationship, set when a driver claims the order
                            PRIMARY KEY(orderID),
                            FOREIGN KEY(login) REFERENCES Users(login)
                            ON DELETE CASCADE,
                            FOREIGN KEY(storeID) REFERENCES Store(storeID)
-                           ON DELETE CASCADE
+                           ON DELETE CASCADE,
+                           FOREIGN KEY(driverLogin) REFERENCES Users(login)
+                           ON DELETE SET NULL
 );
 
+--a deleted driver's assigned orders go back to the dispatch queue; SET NULL
+--alone would leave them assigned to nobody, unclaimable and uncompletable
+CREATE OR REPLACE FUNCTION release_driver_orders() RETURNS trigger AS $$
+BEGIN
+   UPDATE FoodOrder
+   SET orderStatus = 'incomplete', driverLogin = NULL
+   WHERE driverLogin = OLD.login AND orderStatus = 'assigned';
+   RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER release_driver_orders
+BEFORE DELETE ON Users
+FOR EACH ROW EXECUTE PROCEDURE release_driver_orders();
+
 
 
 CREATE TABLE ItemsInOrder ( orderID integer NOT NULL,
@@ -11,7 +11,7 @@ COPY Store
 FROM '/class/classes/gwang086/cs166_project_phase3/data/store.csv'
 WITH DELIMITER ',' CSV HEADER;
 
-COPY FoodOrder
+COPY FoodOrder(orderID, login, storeID, totalPrice, orderTimestamp, orderStatus)
 FROM '/class/classes/gwang086/cs166_project_phase3/data/foodorder.csv'
 WITH DELIMITER ',' CSV HEADER;
 
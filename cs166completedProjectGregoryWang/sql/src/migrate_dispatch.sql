@@ -0,0 +1,31 @@
+/* Adds the driver dispatch queue to a database created before it existed.
+   Run after migrate_enums.sql. ALTER TYPE ... ADD VALUE cannot run inside a
+   transaction block, so this script is not wrapped in BEGIN/COMMIT. */
+ALTER TYPE order_status ADD VALUE IF NOT EXISTS 'assigned' BEFORE 'complete';
+
+ALTER TABLE FoodOrder
+ADD COLUMN IF NOT EXISTS driverLogin varchar(50)
+REFERENCES Users(login) ON DELETE SET NULL;
+
+DROP INDEX IF EXISTS index_incompleteOrders;
+
+CREATE INDEX index_incompleteOrders
+ON FoodOrder
+USING BTREE
+(storeID, orderTimestamp, orderID)
+WHERE orderStatus = 'incomplete';
+
+CREATE OR REPLACE FUNCTION release_driver_orders() RETURNS trigger AS $$
+BEGIN
+   UPDATE FoodOrder
+   SET orderStatus = 'incomplete', driverLogin = NULL
+   WHERE driverLogin = OLD.login AND orderStatus = 'assigned';
+   RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS release_driver_orders ON Users;
+
+CREATE TRIGGER release_driver_orders
+BEFORE DELETE ON Users
+FOR EACH ROW EXECUTE PROCEDURE release_driver_orders();
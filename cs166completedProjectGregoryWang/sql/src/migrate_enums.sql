@@ -0,0 +1,27 @@
+/* Converts an existing database that still stores role and orderStatus as
+   blank padded char columns to the enum types used by create_tables.sql.
+   The data files already hold the enum labels, so load_data.sql needs no
+   changes; only databases created before the enum types need this script. */
+BEGIN;
+
+DO $$
+BEGIN
+   IF NOT EXISTS (SELECT 1 FROM pg_type WHERE typname = 'user_role') THEN
+      CREATE TYPE user_role AS ENUM ('customer', 'driver', 'manager');
+   END IF;
+   IF NOT EXISTS (SELECT 1 FROM pg_type WHERE typname = 'order_status') THEN
+      CREATE TYPE order_status AS ENUM ('incomplete', 'complete');
+   END IF;
+END
+$$;
+
+--index_role is rebuilt on the new column type by ALTER TABLE
+ALTER TABLE Users
+ALTER COLUMN role TYPE user_role
+USING lower(trim(role))::user_role;
+
+ALTER TABLE FoodOrder
+ALTER COLUMN orderStatus TYPE order_status
+USING lower(trim(orderStatus))::order_status;
+
+COMMIT;